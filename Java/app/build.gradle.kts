@@ -32,6 +32,18 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        unitTests {
+            isIncludeAndroidResources = true
+            all {
+                // The download benchmark decodes payloads of up to 256 MB
+                it.maxHeapSize = "4g"
+                it.systemProperty("downloadBenchmark.record", System.getProperty("downloadBenchmark.record") ?: "false")
+                it.systemProperty("downloadBenchmark.checkWallTime", System.getProperty("downloadBenchmark.checkWallTime") ?: "false")
+                it.systemProperty("downloadBenchmark.reportDir", layout.buildDirectory.dir("reports/download-benchmark").get().asFile.path)
+            }
+        }
+    }
 }
 
 dependencies {
@@ -41,7 +53,13 @@ dependencies {
     implementation(libs.constraintlayout)
     implementation(libs.navigation.fragment)
     implementation(libs.navigation.ui)
+    implementation(libs.tracing)
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(libs.test.core)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
+    androidTestImplementation(libs.espresso.intents)
+    androidTestImplementation(libs.test.rules)
+    androidTestImplementation(libs.mockwebserver)
 }
\ No newline at end of file
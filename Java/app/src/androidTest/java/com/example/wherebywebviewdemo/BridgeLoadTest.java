@@ -0,0 +1,219 @@
+package com.example.wherebywebviewdemo;
+
+import static androidx.test.espresso.Espresso.onView;
+import static androidx.test.espresso.action.ViewActions.click;
+import static androidx.test.espresso.intent.Intents.intending;
+import static androidx.test.espresso.intent.matcher.IntentMatchers.hasAction;
+import static androidx.test.espresso.matcher.ViewMatchers.withId;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.Manifest;
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.espresso.intent.Intents;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.rule.GrantPermissionRule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+/**
+ * Load test for the native bridges, runnable offline. A stand-in room page
+ * (assets/fake_room.html) is served from a local HTTP server and loaded in
+ * WebViewActivity, where it fires bursts of blob downloads of mixed MIME types and
+ * sizes, repeated media permission requests and file chooser calls.
+ *
+ * Completions are observed through BridgeEvents. The system pickers are stubbed with
+ * Espresso Intents, and camera/microphone are pre-granted, so the numbers reflect
+ * FileDownloadHandler, PermissionsManager and FileUploadHandler rather than the user.
+ * Throughput, latency percentiles and failures are logged and sent as instrumentation
+ * status per bridge.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BridgeLoadTest {
+
+    private static final String TAG = "BridgeLoadTest";
+
+    private static final int DOWNLOADS = 30;
+    private static final int PERMISSION_REQUESTS = 20;
+    private static final int FILE_CHOOSERS = 10;
+    private static final long TIMEOUT_MS = 120_000;
+
+    @Rule
+    public GrantPermissionRule mediaPermissions =
+            GrantPermissionRule.grant(Manifest.permission.CAMERA, Manifest.permission.RECORD_AUDIO);
+
+    private final Map<String, BridgeStats> stats = new HashMap<>();
+    private MockWebServer server;
+    private File pickedFile;
+
+    // ─────────────────────────────────────────────
+    // Setup
+    // ─────────────────────────────────────────────
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "text/html; charset=utf-8")
+                .setBody(new Buffer().write(readAsset("fake_room.html"))));
+        server.start();
+
+        for (String bridge : new String[]{BridgeEvents.DOWNLOAD, BridgeEvents.PERMISSION, BridgeEvents.FILE_CHOOSER}) {
+            stats.put(bridge, new BridgeStats());
+        }
+        BridgeEvents.setListener((bridge, durationNanos, success) -> {
+            BridgeStats bridgeStats = stats.get(bridge);
+            if (bridgeStats != null) {
+                bridgeStats.record(durationNanos, success);
+            }
+        });
+
+        Context context = ApplicationProvider.getApplicationContext();
+        pickedFile = File.createTempFile("load-test", ".bin", context.getCacheDir());
+
+        // Answer the system pickers immediately, as if the user had picked a file
+        Intents.init();
+        Intent pickedResult = new Intent().setData(Uri.fromFile(pickedFile));
+        intending(hasAction(Intent.ACTION_CREATE_DOCUMENT))
+                .respondWith(new Instrumentation.ActivityResult(Activity.RESULT_OK, pickedResult));
+        intending(hasAction(Intent.ACTION_GET_CONTENT))
+                .respondWith(new Instrumentation.ActivityResult(Activity.RESULT_OK, pickedResult));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        BridgeEvents.setListener(null);
+        Intents.release();
+        server.shutdown();
+        pickedFile.delete();
+    }
+
+    // ─────────────────────────────────────────────
+    // Load test
+    // ─────────────────────────────────────────────
+
+    @Test
+    public void bridgesHandleBurstsWithoutFailures() {
+        String roomUrl = "http://localhost:" + server.getPort() + "/fake_room.html"
+                + "?downloads=" + DOWNLOADS + "&permissions=" + PERMISSION_REQUESTS;
+
+        Intent intent = new Intent(ApplicationProvider.getApplicationContext(), WebViewActivity.class);
+        intent.putExtra(Constants.ROOM_URL_KEY, roomUrl);
+
+        long startedAtMs = SystemClock.elapsedRealtime();
+        try (ActivityScenario<WebViewActivity> ignored = ActivityScenario.launch(intent)) {
+            awaitCompleted(BridgeEvents.DOWNLOAD, DOWNLOADS);
+            awaitCompleted(BridgeEvents.PERMISSION, PERMISSION_REQUESTS);
+
+            // A file chooser needs a user gesture: the page shows a full-screen file input by now
+            for (int i = 0; i < FILE_CHOOSERS; i++) {
+                onView(withId(R.id.webView)).perform(click());
+                awaitCompleted(BridgeEvents.FILE_CHOOSER, i + 1);
+            }
+        }
+        long elapsedMs = SystemClock.elapsedRealtime() - startedAtMs;
+
+        Bundle results = new Bundle();
+        for (Map.Entry<String, BridgeStats> entry : stats.entrySet()) {
+            String summary = entry.getValue().summarize(elapsedMs);
+            Log.i(TAG, entry.getKey() + ": " + summary);
+            results.putString(entry.getKey(), summary);
+        }
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+
+        assertEquals(0, stats.get(BridgeEvents.DOWNLOAD).failures);
+        assertEquals(0, stats.get(BridgeEvents.PERMISSION).failures);
+        assertEquals(0, stats.get(BridgeEvents.FILE_CHOOSER).failures);
+    }
+
+    // ─────────────────────────────────────────────
+    // Helpers
+    // ─────────────────────────────────────────────
+
+    private void awaitCompleted(String bridge, int expected) {
+        BridgeStats bridgeStats = stats.get(bridge);
+        long deadline = SystemClock.elapsedRealtime() + TIMEOUT_MS;
+        while (bridgeStats.completed() < expected && SystemClock.elapsedRealtime() < deadline) {
+            SystemClock.sleep(50);
+        }
+        assertTrue(bridge + ": only " + bridgeStats.completed() + " of " + expected + " calls completed",
+                bridgeStats.completed() >= expected);
+    }
+
+    private static byte[] readAsset(String name) throws IOException {
+        Context testContext = InstrumentationRegistry.getInstrumentation().getContext();
+        try (InputStream input = testContext.getAssets().open(name)) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                output.write(chunk, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * Completions of one bridge, recorded from whichever thread finished the call.
+     */
+    private static final class BridgeStats {
+        private final List<Long> latenciesNanos = new ArrayList<>();
+        int failures;
+
+        synchronized void record(long durationNanos, boolean success) {
+            latenciesNanos.add(durationNanos);
+            if (!success) failures++;
+        }
+
+        synchronized int completed() {
+            return latenciesNanos.size();
+        }
+
+        synchronized String summarize(long elapsedMs) {
+            List<Long> sorted = new ArrayList<>(latenciesNanos);
+            Collections.sort(sorted);
+            double throughput = elapsedMs > 0 ? sorted.size() * 1000.0 / elapsedMs : 0;
+            return String.format(Locale.US,
+                    "calls=%d failures=%d throughput=%.1f/s p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms",
+                    sorted.size(), failures, throughput,
+                    percentileMs(sorted, 50), percentileMs(sorted, 95), percentileMs(sorted, 99),
+                    percentileMs(sorted, 100));
+        }
+
+        private static double percentileMs(List<Long> sorted, int percentile) {
+            if (sorted.isEmpty()) return 0;
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1))) / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.wherebywebviewdemo;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.WebView;
+
+import androidx.fragment.app.FragmentManager;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Opens and closes a room N times, in WebViewActivity and in WebViewFragment, and
+ * checks that no Activity, Fragment or WebView outlives its room and that the heap
+ * retained after GC stays flat.
+ *
+ * The number of rounds can be raised to simulate a long shift of back-to-back meetings:
+ * adb shell am instrument -w -e leakIterations 200 ...
+ */
+@RunWith(AndroidJUnit4.class)
+public class RoomLeakTest {
+
+    private static final String TAG = "RoomLeakTest";
+    private static final String ROOM_URL = "about:blank";
+
+    private static final int DEFAULT_ITERATIONS = 20;
+    // Rounds run before the baseline is taken, so one-time WebView initialization is excluded
+    private static final int WARMUP_ITERATIONS = 3;
+    // A destroyed WebView may be cached by the provider until the next one is created
+    private static final int MAX_LIVE_INSTANCES = 1;
+    private static final long MAX_RETAINED_GROWTH_BYTES = 8L * 1024 * 1024;
+
+    // ─────────────────────────────────────────────
+    // Tests
+    // ─────────────────────────────────────────────
+
+    @Test
+    public void webViewActivity_doesNotLeakAcrossRooms() {
+        List<WeakReference<Object>> hosts = new ArrayList<>();
+        List<WeakReference<Object>> webViews = new ArrayList<>();
+
+        Intent intent = new Intent(ApplicationProvider.getApplicationContext(), WebViewActivity.class);
+        intent.putExtra(Constants.ROOM_URL_KEY, ROOM_URL);
+
+        long baselineBytes = 0;
+        int iterations = getIterations();
+        for (int i = 0; i < WARMUP_ITERATIONS + iterations; i++) {
+            if (i == WARMUP_ITERATIONS) {
+                baselineBytes = retainedBytesAfterGc();
+            }
+            try (ActivityScenario<WebViewActivity> scenario = ActivityScenario.launch(intent)) {
+                scenario.onActivity(activity -> {
+                    hosts.add(new WeakReference<>(activity));
+                    webViews.add(new WeakReference<>(activity.findViewById(R.id.webView)));
+                });
+            }
+        }
+
+        report("activity", iterations, baselineBytes, hosts, webViews);
+    }
+
+    @Test
+    public void webViewFragment_doesNotLeakAcrossRooms() {
+        List<WeakReference<Object>> hosts = new ArrayList<>();
+        List<WeakReference<Object>> webViews = new ArrayList<>();
+
+        long baselineBytes = 0;
+        int iterations = getIterations();
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            for (int i = 0; i < WARMUP_ITERATIONS + iterations; i++) {
+                if (i == WARMUP_ITERATIONS) {
+                    baselineBytes = retainedBytesAfterGc();
+                }
+                scenario.onActivity(activity -> {
+                    WebViewFragment fragment = WebViewFragment.newInstance(ROOM_URL);
+                    FragmentManager fragmentManager = activity.getSupportFragmentManager();
+                    fragmentManager.beginTransaction()
+                            .setReorderingAllowed(true)
+                            .replace(R.id.frameLayout, fragment)
+                            .addToBackStack(null)
+                            .commit();
+                    fragmentManager.executePendingTransactions();
+
+                    hosts.add(new WeakReference<>(fragment));
+                    webViews.add(new WeakReference<>(fragment.requireView().findViewById(R.id.webview)));
+                });
+                scenario.onActivity(activity -> activity.getSupportFragmentManager().popBackStackImmediate());
+            }
+
+            report("fragment", iterations, baselineBytes, hosts, webViews);
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Helpers
+    // ─────────────────────────────────────────────
+
+    private static void report(
+            String host,
+            int iterations,
+            long baselineBytes,
+            List<WeakReference<Object>> hosts,
+            List<WeakReference<Object>> webViews
+    ) {
+        long retainedBytes = retainedBytesAfterGc();
+        int liveHosts = countLive(hosts);
+        int liveWebViews = countLive(webViews);
+        long growthBytes = retainedBytes - baselineBytes;
+
+        String summary = String.format(Locale.US,
+                "%s: rounds=%d liveHosts=%d liveWebViews=%d retainedGrowth=%.1fMB (%.1fKB/round) nativeHeap=%.1fMB",
+                host, iterations, liveHosts, liveWebViews,
+                growthBytes / (1024.0 * 1024.0), growthBytes / 1024.0 / iterations,
+                Debug.getNativeHeapAllocatedSize() / (1024.0 * 1024.0));
+        Log.i(TAG, summary);
+
+        Bundle results = new Bundle();
+        results.putString(host, summary);
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+
+        assertTrue("Leaked hosts: " + summary, liveHosts <= MAX_LIVE_INSTANCES);
+        assertTrue("Leaked WebViews: " + summary, liveWebViews <= MAX_LIVE_INSTANCES);
+        assertTrue("Retained heap grew: " + summary, growthBytes <= MAX_RETAINED_GROWTH_BYTES);
+    }
+
+    private static int getIterations() {
+        String value = InstrumentationRegistry.getArguments().getString("leakIterations");
+        return value != null ? Integer.parseInt(value) : DEFAULT_ITERATIONS;
+    }
+
+    private static int countLive(List<WeakReference<Object>> references) {
+        int live = 0;
+        for (WeakReference<Object> reference : references) {
+            if (reference.get() != null) live++;
+        }
+        return live;
+    }
+
+    /**
+     * @return The Java heap in use after a few rounds of GC and finalization.
+     */
+    private static long retainedBytesAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            // Let the main thread finish pending teardown work before collecting
+            InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+            runtime.gc();
+            System.runFinalization();
+            SystemClock.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
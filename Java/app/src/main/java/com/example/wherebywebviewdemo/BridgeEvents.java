@@ -0,0 +1,45 @@
+package com.example.wherebywebviewdemo;
+
+import androidx.annotation.Nullable;
+
+/**
+ * BridgeEvents reports when a call coming from the page through one of the native bridges
+ * (blob download, media permission request, file chooser) has been fully handled, and how
+ * long it took. It exists so load tests and diagnostics can observe the bridges without
+ * hooking into their internals; with no listener set, reporting costs a volatile read.
+ */
+public final class BridgeEvents {
+
+    public static final String DOWNLOAD = "download";
+    public static final String PERMISSION = "permission";
+    public static final String FILE_CHOOSER = "fileChooser";
+
+    public interface Listener {
+
+        /**
+         * Called on the thread that completed the call, usually the main thread.
+         *
+         * @param bridge        One of DOWNLOAD, PERMISSION or FILE_CHOOSER.
+         * @param durationNanos Time from the page's call to its completion.
+         * @param success       false if the call failed or was dropped.
+         */
+        void onBridgeCallCompleted(String bridge, long durationNanos, boolean success);
+    }
+
+    private static volatile @Nullable Listener listener;
+
+    private BridgeEvents() {
+        // Prevent instantiation
+    }
+
+    public static void setListener(@Nullable Listener newListener) {
+        listener = newListener;
+    }
+
+    static void report(String bridge, long startedAtNanos, boolean success) {
+        Listener current = listener;
+        if (current != null) {
+            current.onBridgeCallCompleted(bridge, System.nanoTime() - startedAtNanos, success);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.wherebywebviewdemo;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.WindowManager;
+import android.webkit.JavascriptInterface;
+import android.webkit.WebView;
+
+import androidx.annotation.Nullable;
+
+/**
+ * CallPowerManager keeps the device awake only while media is actually flowing:
+ * - with video, the screen is kept on (FLAG_KEEP_SCREEN_ON) while the host is visible,
+ * - otherwise, e.g. audio-only or in the background, a partial wake lock keeps the CPU
+ *   running so the renderer is not throttled and audio does not glitch.
+ * Both are released as soon as media stops, and when the call ends.
+ *
+ * Media state comes from the page, over a JavaScript interface. A script injected when
+ * the page starts loading reports the page's live camera and microphone tracks, and
+ * the live tracks of its media elements; a web app embedding Whereby may also report
+ * its call state directly through the same interface.
+ */
+public class CallPowerManager {
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    private static final String TAG = "CallPowerManager";
+    private static final String JS_INTERFACE_NAME = "callStateHandler";
+    private static final String WAKE_LOCK_TAG = "wherebywebviewdemo:call";
+
+    // Safety net: the lock expires if the page stops reporting, and is re-acquired on the next report
+    private static final long WAKE_LOCK_TIMEOUT_MS = 10 * 60 * 1000;
+    private static final long REPORT_INTERVAL_MS = 5_000;
+
+    // Reports whether live capture tracks exist, or media elements play live tracks (e.g.,
+    // getUserMedia was called before the script was installed, or remote participants
+    // are shown). Polling catches track.stop(), which fires no event.
+    private static final String MEDIA_STATE_SCRIPT = "(function() {" +
+            "if (window.__callPowerInstalled || !navigator.mediaDevices) return;" +
+            "window.__callPowerInstalled = true;" +
+            "const tracks = new Set();" +
+            "function report() {" +
+            "  let audio = false, video = false;" +
+            "  function scan(t) {" +
+            "    if (t.readyState !== 'live') return false;" +
+            "    if (t.kind === 'audio') audio = true; else video = true;" +
+            "    return true;" +
+            "  }" +
+            "  tracks.forEach(function(t) { if (!scan(t)) tracks.delete(t); });" +
+            "  document.querySelectorAll('video,audio').forEach(function(el) {" +
+            "    const stream = el.srcObject;" +
+            "    if (stream && typeof stream.getTracks === 'function') stream.getTracks().forEach(scan);" +
+            "  });" +
+            "  window." + JS_INTERFACE_NAME + ".onMediaStateChanged(audio, video);" +
+            "}" +
+            "const getUserMedia = navigator.mediaDevices.getUserMedia.bind(navigator.mediaDevices);" +
+            "navigator.mediaDevices.getUserMedia = function(constraints) {" +
+            "  return getUserMedia(constraints).then(function(stream) {" +
+            "    stream.getTracks().forEach(function(t) {" +
+            "      tracks.add(t);" +
+            "      t.addEventListener('ended', report);" +
+            "    });" +
+            "    report();" +
+            "    return stream;" +
+            "  });" +
+            "};" +
+            "setInterval(report, " + REPORT_INTERVAL_MS + ");" +
+            "})()";
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private @Nullable Activity activity;
+    private final PowerManager.WakeLock wakeLock;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Only touched on the main thread
+    private boolean audioFlowing = false;
+    private boolean videoFlowing = false;
+    private boolean hostVisible = false;
+    private boolean screenOnHeld = false;
+    private long screenOnSinceMs = -1;
+    private long wakeLockSinceMs = -1;
+    private long totalScreenOnMs = 0;
+    private long totalWakeLockMs = 0;
+
+    public CallPowerManager(Activity activity) {
+        this.activity = activity;
+        PowerManager powerManager = (PowerManager) activity.getApplicationContext()
+                .getSystemService(Context.POWER_SERVICE);
+        this.wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, WAKE_LOCK_TAG);
+        this.wakeLock.setReferenceCounted(false);
+    }
+
+    // ─────────────────────────────────────────────
+    // WebView
+    // ─────────────────────────────────────────────
+
+    /**
+     * Registers the JavaScript interface on the given WebView.
+     */
+    public void attachToWebView(WebView webView) {
+        webView.addJavascriptInterface(this, JS_INTERFACE_NAME);
+    }
+
+    public void detachFromWebView(WebView webView) {
+        webView.removeJavascriptInterface(JS_INTERFACE_NAME);
+    }
+
+    /**
+     * Should be called from WebViewClient.onPageStarted(). Installs the media state reporter
+     * before the page asks for media; a new page starts without media.
+     */
+    public void onPageStarted(WebView webView) {
+        setMediaState(false, false);
+        webView.evaluateJavascript(MEDIA_STATE_SCRIPT, null);
+    }
+
+    /**
+     * Should be called from WebViewClient.onPageFinished(). Installs the media state reporter
+     * if onPageStarted() was too early for it.
+     */
+    public void onPageFinished(WebView webView) {
+        webView.evaluateJavascript(MEDIA_STATE_SCRIPT, null);
+    }
+
+    // ─────────────────────────────────────────────
+    // JavaScript Interface
+    // ─────────────────────────────────────────────
+
+    /**
+     * Called by the page whenever its media state may have changed.
+     */
+    @JavascriptInterface
+    public void onMediaStateChanged(boolean audioFlowing, boolean videoFlowing) {
+        mainHandler.post(() -> setMediaState(audioFlowing, videoFlowing));
+    }
+
+    // ─────────────────────────────────────────────
+    // Lifecycle callbacks
+    // ─────────────────────────────────────────────
+
+    public void onHostResumed() {
+        hostVisible = true;
+        update();
+    }
+
+    public void onHostPaused() {
+        hostVisible = false;
+        update();
+    }
+
+    /**
+     * Releases everything. Should be called when the call ends (host destroyed or the
+     * renderer gone for good).
+     */
+    public void release() {
+        mainHandler.removeCallbacksAndMessages(null);
+        audioFlowing = false;
+        videoFlowing = false;
+        update();
+        activity = null;
+        Log.i(TAG, "Call held the screen on for " + totalScreenOnMs + " ms and a wake lock for "
+                + totalWakeLockMs + " ms");
+    }
+
+    // ─────────────────────────────────────────────
+    // Metrics
+    // ─────────────────────────────────────────────
+
+    public long getTotalScreenOnMs() {
+        return totalScreenOnMs + (screenOnHeld ? SystemClock.elapsedRealtime() - screenOnSinceMs : 0);
+    }
+
+    public long getTotalWakeLockMs() {
+        return totalWakeLockMs + (wakeLockSinceMs >= 0 ? SystemClock.elapsedRealtime() - wakeLockSinceMs : 0);
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    void setMediaState(boolean audioFlowing, boolean videoFlowing) {
+        if (activity == null) return;
+        this.audioFlowing = audioFlowing;
+        this.videoFlowing = videoFlowing;
+        update();
+    }
+
+    private void update() {
+        boolean wantScreenOn = videoFlowing && hostVisible && activity != null;
+        boolean wantWakeLock = (audioFlowing || videoFlowing) && !wantScreenOn;
+        long now = SystemClock.elapsedRealtime();
+
+        if (wantScreenOn && !screenOnHeld) {
+            activity.getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+            screenOnHeld = true;
+            screenOnSinceMs = now;
+        } else if (!wantScreenOn && screenOnHeld) {
+            if (activity != null) {
+                activity.getWindow().clearFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+            }
+            screenOnHeld = false;
+            long heldMs = now - screenOnSinceMs;
+            totalScreenOnMs += heldMs;
+            Log.i(TAG, "Released screen-on after " + heldMs + " ms");
+        }
+
+        if (wantWakeLock) {
+            // Also re-acquires a lock that expired while media kept flowing
+            if (!wakeLock.isHeld()) {
+                if (wakeLockSinceMs < 0) wakeLockSinceMs = now;
+                wakeLock.acquire(WAKE_LOCK_TIMEOUT_MS);
+            }
+        } else if (wakeLockSinceMs >= 0) {
+            if (wakeLock.isHeld()) {
+                wakeLock.release();
+            }
+            long heldMs = now - wakeLockSinceMs;
+            wakeLockSinceMs = -1;
+            totalWakeLockMs += heldMs;
+            Log.i(TAG, "Released wake lock after " + heldMs + " ms");
+        }
+    }
+}
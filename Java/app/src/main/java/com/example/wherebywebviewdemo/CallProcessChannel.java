@@ -0,0 +1,134 @@
+package com.example.wherebywebviewdemo;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.ResultReceiver;
+
+import androidx.annotation.Nullable;
+
+/**
+ * CallProcessChannel carries results from a room hosted in the ":call" process back to
+ * the launcher. The room URL travels the other way in the launch Intent as usual.
+ *
+ * The channel is a ResultReceiver passed in the launch extras under
+ * Constants.CALL_RESULT_RECEIVER_KEY: it is a Binder, so it needs no service or AIDL and
+ * dies with the launcher. When the room runs in the launcher's own process no receiver
+ * is passed and sending is a no-op.
+ */
+public final class CallProcessChannel {
+
+    /**
+     * Receives the results of a call, on the launcher's main thread.
+     */
+    public interface Listener {
+
+        /**
+         * @param reason       One of the END_REASON_* constants.
+         * @param sessionState SessionResumeStore state at the end of the call, for importState().
+         * @param metrics      Call metrics, see the METRIC_* keys.
+         */
+        void onCallEnded(String reason, Bundle sessionState, Bundle metrics);
+    }
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    public static final String END_REASON_LEFT = "left";
+    public static final String END_REASON_CRASHED = "crashed";
+
+    public static final String METRIC_CALL_DURATION_MS = "callDurationMs";
+    public static final String METRIC_WARM_JOIN = "warmJoin";
+    public static final String METRIC_JOIN_LATENCY_MS = "joinLatencyMs";
+    public static final String METRIC_RECOVERY_DURATIONS_MS = "recoveryDurationsMs";
+    public static final String METRIC_CONSOLE_ERRORS = "consoleErrors";
+    public static final String METRIC_CONSOLE_WARNINGS = "consoleWarnings";
+    public static final String METRIC_TOTAL_FRAMES = "totalFrames";
+    public static final String METRIC_SLOW_FRAMES = "slowFrames";
+    public static final String METRIC_FROZEN_FRAMES = "frozenFrames";
+    public static final String METRIC_PERFORMANCE_PROFILE = "performanceProfile";
+    public static final String METRIC_UNSUPPORTED_SETTINGS = "unsupportedSettings";
+    public static final String METRIC_JAVA_HEAP_BYTES = "javaHeapBytes";
+    public static final String METRIC_NATIVE_HEAP_BYTES = "nativeHeapBytes";
+
+    private static final int EVENT_CALL_ENDED = 1;
+
+    private static final String KEY_REASON = "reason";
+    private static final String KEY_SESSION_STATE = "sessionState";
+    private static final String KEY_METRICS = "metrics";
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final @Nullable ResultReceiver receiver;
+
+    private CallProcessChannel(@Nullable ResultReceiver receiver) {
+        this.receiver = receiver;
+    }
+
+    // ─────────────────────────────────────────────
+    // Launcher side
+    // ─────────────────────────────────────────────
+
+    /**
+     * Creates the receiving end, to be put in the launch extras.
+     */
+    public static ResultReceiver createReceiver(Listener listener) {
+        ResultReceiver receiver = new ResultReceiver(new Handler(Looper.getMainLooper())) {
+            @Override
+            protected void onReceiveResult(int resultCode, Bundle resultData) {
+                if (resultCode != EVENT_CALL_ENDED || resultData == null) return;
+
+                Bundle sessionState = resultData.getBundle(KEY_SESSION_STATE);
+                Bundle metrics = resultData.getBundle(KEY_METRICS);
+                listener.onCallEnded(
+                        resultData.getString(KEY_REASON, END_REASON_LEFT),
+                        sessionState != null ? sessionState : new Bundle(),
+                        metrics != null ? metrics : new Bundle()
+                );
+            }
+        };
+
+        // Re-parcel as a plain ResultReceiver, so the call process does not need to
+        // resolve the anonymous subclass when unparceling the extras
+        Parcel parcel = Parcel.obtain();
+        try {
+            receiver.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return ResultReceiver.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Call side
+    // ─────────────────────────────────────────────
+
+    /**
+     * @param launchArgs The launch extras, which may or may not contain a receiver.
+     */
+    public static CallProcessChannel fromLaunchArgs(@Nullable Bundle launchArgs) {
+        ResultReceiver receiver = launchArgs != null
+                ? launchArgs.getParcelable(Constants.CALL_RESULT_RECEIVER_KEY)
+                : null;
+        return new CallProcessChannel(receiver);
+    }
+
+    public boolean isConnected() {
+        return receiver != null;
+    }
+
+    public void sendCallEnded(String reason, Bundle sessionState, Bundle metrics) {
+        if (receiver == null) return;
+
+        Bundle resultData = new Bundle();
+        resultData.putString(KEY_REASON, reason);
+        resultData.putBundle(KEY_SESSION_STATE, sessionState);
+        resultData.putBundle(KEY_METRICS, metrics);
+        receiver.send(EVENT_CALL_ENDED, resultData);
+    }
+}
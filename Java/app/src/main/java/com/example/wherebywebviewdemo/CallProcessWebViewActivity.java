@@ -0,0 +1,69 @@
+package com.example.wherebywebviewdemo;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+
+/**
+ * WebViewActivity hosted in the ":call" process (see AndroidManifest.xml). The launcher
+ * keeps its own small heap, a crash in the call only takes this process down, and once
+ * the room is left the whole process is torn down, releasing everything Chromium held,
+ * unless another room has been opened in it meanwhile.
+ *
+ * Results go back to the launcher through CallProcessChannel before teardown.
+ */
+public class CallProcessWebViewActivity extends WebViewActivity {
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private static final String TAG = "CallProcessActivity";
+
+    // Leaves time for the destroy to be acknowledged before the process goes away
+    private static final long TEARDOWN_DELAY_MS = 500;
+
+    private static final Handler teardownHandler = new Handler(Looper.getMainLooper());
+    private static final Runnable killProcess = () -> {
+        // A room opened during the delay keeps the process
+        if (liveActivities == 0) {
+            Process.killProcess(Process.myPid());
+        }
+    };
+
+    // Instances created and not yet destroyed; only touched on the main thread
+    private static int liveActivities = 0;
+
+    // ─────────────────────────────────────────────
+    // Lifecycle
+    // ─────────────────────────────────────────────
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        liveActivities++;
+        teardownHandler.removeCallbacks(killProcess);
+
+        // Trace recording is per process; the launcher's recorder cannot see this one
+        if (Constants.TRACE_RECORDING_ENABLED && !TraceRecorder.isRecording()) {
+            File traceFile = TraceRecorder.start(new File(getExternalFilesDir(null), "traces"));
+            Log.i(TAG, "Recording trace to " + traceFile);
+        }
+
+        super.onCreate(savedInstanceState);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        liveActivities--;
+        if (!isFinishing() || isChangingConfigurations() || liveActivities > 0) return;
+
+        TraceRecorder.stop();
+        // Nothing else lives in this process: end it rather than leave Chromium cached
+        teardownHandler.postDelayed(killProcess, TEARDOWN_DELAY_MS);
+    }
+}
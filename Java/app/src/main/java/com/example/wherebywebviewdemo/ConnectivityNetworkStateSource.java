@@ -0,0 +1,132 @@
+package com.example.wherebywebviewdemo;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * NetworkStateSource backed by ConnectivityManager. Reads transport, metered status and
+ * the downstream bandwidth estimate of the active network, and reports changes on the
+ * main thread.
+ */
+public class ConnectivityNetworkStateSource implements NetworkStateSource {
+
+    private final ConnectivityManager connectivityManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private @Nullable Listener listener;
+    private @Nullable ConnectivityManager.NetworkCallback networkCallback;
+
+    public ConnectivityNetworkStateSource(Context context) {
+        this.connectivityManager = (ConnectivityManager) context.getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    @Override
+    public NetworkState getCurrentState() {
+        if (connectivityManager == null) {
+            return new NetworkState(NetworkState.TRANSPORT_OTHER, false, NetworkState.UNKNOWN_BANDWIDTH);
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            NetworkCapabilities capabilities =
+                    connectivityManager.getNetworkCapabilities(connectivityManager.getActiveNetwork());
+            if (capabilities == null) {
+                return new NetworkState(NetworkState.TRANSPORT_NONE, false, NetworkState.UNKNOWN_BANDWIDTH);
+            }
+
+            int bandwidthKbps = capabilities.getLinkDownstreamBandwidthKbps();
+            return new NetworkState(
+                    getTransport(capabilities),
+                    !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED),
+                    bandwidthKbps > 0 ? bandwidthKbps : NetworkState.UNKNOWN_BANDWIDTH
+            );
+        }
+
+        NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+        if (networkInfo == null || !networkInfo.isConnected()) {
+            return new NetworkState(NetworkState.TRANSPORT_NONE, false, NetworkState.UNKNOWN_BANDWIDTH);
+        }
+        return new NetworkState(
+                getTransport(networkInfo.getType()),
+                connectivityManager.isActiveNetworkMetered(),
+                NetworkState.UNKNOWN_BANDWIDTH
+        );
+    }
+
+    @Override
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+        if (connectivityManager == null) return;
+
+        if (listener != null && networkCallback == null) {
+            networkCallback = new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    dispatchChange();
+                }
+
+                @Override
+                public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+                    dispatchChange();
+                }
+
+                @Override
+                public void onLost(@NonNull Network network) {
+                    dispatchChange();
+                }
+            };
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                connectivityManager.registerDefaultNetworkCallback(networkCallback);
+            } else {
+                NetworkRequest request = new NetworkRequest.Builder()
+                        .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                        .build();
+                connectivityManager.registerNetworkCallback(request, networkCallback);
+            }
+        } else if (listener == null && networkCallback != null) {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+            networkCallback = null;
+            mainHandler.removeCallbacksAndMessages(null);
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    private void dispatchChange() {
+        // Network callbacks arrive on a ConnectivityManager thread
+        mainHandler.post(() -> {
+            Listener current = listener;
+            if (current != null) {
+                current.onNetworkStateChanged(getCurrentState());
+            }
+        });
+    }
+
+    private static int getTransport(NetworkCapabilities capabilities) {
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) return NetworkState.TRANSPORT_WIFI;
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) return NetworkState.TRANSPORT_CELLULAR;
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) return NetworkState.TRANSPORT_ETHERNET;
+        return NetworkState.TRANSPORT_OTHER;
+    }
+
+    private static int getTransport(int networkType) {
+        switch (networkType) {
+            case ConnectivityManager.TYPE_WIFI: return NetworkState.TRANSPORT_WIFI;
+            case ConnectivityManager.TYPE_MOBILE: return NetworkState.TRANSPORT_CELLULAR;
+            case ConnectivityManager.TYPE_ETHERNET: return NetworkState.TRANSPORT_ETHERNET;
+            default: return NetworkState.TRANSPORT_OTHER;
+        }
+    }
+}
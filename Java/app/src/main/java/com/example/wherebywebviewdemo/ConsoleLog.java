@@ -0,0 +1,270 @@
+package com.example.wherebywebviewdemo;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.ConsoleMessage;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ConsoleLog keeps the most recent console messages of the room page in a fixed-size
+ * ring buffer, instead of sending each of them to logcat.
+ *
+ * Messages below the minimum level are only counted. Each source (script URL) gets a
+ * small token bucket, so one chatty script cannot flush everything else out of the
+ * buffer. The buffer is written to logcat on demand with {@link #dump(String)}, and
+ * automatically on page errors (at most once per interval) and on renderer crashes.
+ *
+ * Storage is preallocated: recording a message keeps references to the strings the
+ * WebView already created and does not allocate on its own.
+ */
+public final class ConsoleLog {
+
+    /**
+     * Console levels, from least to most severe.
+     */
+    public enum Level {
+        DEBUG, LOG, WARNING, ERROR;
+
+        static Level from(ConsoleMessage.MessageLevel messageLevel) {
+            switch (messageLevel) {
+                case ERROR:
+                    return ERROR;
+                case WARNING:
+                    return WARNING;
+                case DEBUG:
+                    return DEBUG;
+                default:
+                    // LOG and TIP
+                    return LOG;
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    private static final String TAG = "ConsoleLog";
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final int MAX_MESSAGE_CHARS = 1024;
+    private static final int MAX_TRACKED_SOURCES = 32;
+    private static final int RATE_LIMIT_BURST = 20;
+    private static final long RATE_LIMIT_REFILL_MS = 250;
+    private static final long AUTO_DUMP_INTERVAL_MS = 30_000;
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final int capacity;
+    private final Level minLevel;
+
+    // Ring buffer, stored as parallel arrays
+    private final long[] timesMs;
+    private final Level[] levels;
+    private final String[] messages;
+    private final String[] sources;
+    private final int[] lines;
+    private int next = 0;
+    private int size = 0;
+
+    private final long[] countsByLevel = new long[Level.values().length];
+    private long filteredCount = 0;
+    private long rateLimitedCount = 0;
+
+    // Access-ordered, so the least recently heard source is forgotten first
+    private final Map<String, SourceBucket> buckets =
+            new LinkedHashMap<String, SourceBucket>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SourceBucket> eldest) {
+                    return size() > MAX_TRACKED_SOURCES;
+                }
+            };
+
+    private long lastAutoDumpAtMs = -AUTO_DUMP_INTERVAL_MS;
+
+    public ConsoleLog() {
+        this(DEFAULT_CAPACITY, Level.LOG);
+    }
+
+    /**
+     * @param capacity Number of messages kept; older ones are overwritten.
+     * @param minLevel Messages below this level are counted but not kept.
+     */
+    public ConsoleLog(int capacity, Level minLevel) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.minLevel = minLevel;
+        timesMs = new long[capacity];
+        levels = new Level[capacity];
+        messages = new String[capacity];
+        sources = new String[capacity];
+        lines = new int[capacity];
+    }
+
+    // ─────────────────────────────────────────────
+    // Recording
+    // ─────────────────────────────────────────────
+
+    /**
+     * Should be called from WebChromeClient.onConsoleMessage(). Errors trigger an
+     * automatic dump, at most once per interval.
+     */
+    public void record(ConsoleMessage consoleMessage) {
+        long now = SystemClock.elapsedRealtime();
+        Level level = Level.from(consoleMessage.messageLevel());
+        boolean kept = record(level, consoleMessage.message(), consoleMessage.sourceId(),
+                consoleMessage.lineNumber(), now);
+
+        if (kept && level == Level.ERROR && shouldAutoDump(now)) {
+            dump("page error");
+        }
+    }
+
+    /**
+     * @return true if the message was stored in the buffer.
+     */
+    synchronized boolean record(Level level, String message, @Nullable String sourceId, int line, long nowMs) {
+        countsByLevel[level.ordinal()]++;
+
+        if (level.compareTo(minLevel) < 0) {
+            filteredCount++;
+            return false;
+        }
+
+        String source = sourceId != null ? sourceId : "";
+        SourceBucket bucket = buckets.get(source);
+        if (bucket == null) {
+            bucket = new SourceBucket(nowMs);
+            buckets.put(source, bucket);
+        }
+        if (!bucket.tryAcquire(nowMs)) {
+            rateLimitedCount++;
+            return false;
+        }
+
+        timesMs[next] = nowMs;
+        levels[next] = level;
+        messages[next] = message;
+        sources[next] = source;
+        lines[next] = line;
+        next = (next + 1) % capacity;
+        if (size < capacity) size++;
+        return true;
+    }
+
+    synchronized boolean shouldAutoDump(long nowMs) {
+        if (nowMs - lastAutoDumpAtMs < AUTO_DUMP_INTERVAL_MS) return false;
+        lastAutoDumpAtMs = nowMs;
+        return true;
+    }
+
+    // ─────────────────────────────────────────────
+    // Reading
+    // ─────────────────────────────────────────────
+
+    /**
+     * Writes the counters and every buffered message, oldest first, to logcat.
+     *
+     * @param reason Why the dump was taken (e.g., "renderer crash"), included in the header.
+     */
+    public void dump(String reason) {
+        List<String> entries = snapshot();
+        Log.i(TAG, "Console dump (" + reason + "): " + getCountersSummary());
+        for (String entry : entries) {
+            Log.i(TAG, entry);
+        }
+    }
+
+    /**
+     * @return The buffered messages, oldest first, formatted as
+     * "[age] LEVEL source:line message" where age is relative to the newest message.
+     */
+    public synchronized List<String> snapshot() {
+        List<String> entries = new ArrayList<>(size);
+        if (size == 0) return entries;
+
+        int first = (next - size + capacity) % capacity;
+        long newestMs = timesMs[(next - 1 + capacity) % capacity];
+        for (int i = 0; i < size; i++) {
+            int index = (first + i) % capacity;
+            String message = messages[index];
+            if (message != null && message.length() > MAX_MESSAGE_CHARS) {
+                message = message.substring(0, MAX_MESSAGE_CHARS) + "…";
+            }
+            entries.add(String.format(Locale.US, "[-%dms] %s %s:%d %s",
+                    newestMs - timesMs[index], levels[index], sources[index], lines[index], message));
+        }
+        return entries;
+    }
+
+    /**
+     * @return How many messages of the given level the page logged, kept or not.
+     */
+    public synchronized long getCount(Level level) {
+        return countsByLevel[level.ordinal()];
+    }
+
+    /**
+     * @return How many messages were dropped because their source exceeded its rate.
+     */
+    public synchronized long getRateLimitedCount() {
+        return rateLimitedCount;
+    }
+
+    /**
+     * @return How many messages were dropped for being below the minimum level.
+     */
+    public synchronized long getFilteredCount() {
+        return filteredCount;
+    }
+
+    public synchronized String getCountersSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Level level : Level.values()) {
+            summary.append(level).append('=').append(countsByLevel[level.ordinal()]).append(' ');
+        }
+        return summary.append("filtered=").append(filteredCount)
+                .append(" rateLimited=").append(rateLimitedCount)
+                .append(" buffered=").append(size)
+                .toString();
+    }
+
+    // ─────────────────────────────────────────────
+    // Rate limiting
+    // ─────────────────────────────────────────────
+
+    /**
+     * Token bucket: a burst of RATE_LIMIT_BURST messages, then one per RATE_LIMIT_REFILL_MS.
+     */
+    private static final class SourceBucket {
+        private int tokens = RATE_LIMIT_BURST;
+        private long lastRefillMs;
+
+        SourceBucket(long nowMs) {
+            lastRefillMs = nowMs;
+        }
+
+        boolean tryAcquire(long nowMs) {
+            long refills = (nowMs - lastRefillMs) / RATE_LIMIT_REFILL_MS;
+            if (refills > 0) {
+                tokens = (int) Math.min(RATE_LIMIT_BURST, tokens + refills);
+                lastRefillMs += refills * RATE_LIMIT_REFILL_MS;
+            }
+            if (tokens == 0) return false;
+            tokens--;
+            return true;
+        }
+    }
+}
@@ -5,6 +5,33 @@ public final class Constants {
     // Key used to pass the room URL to the WebViewActivity or WebViewFragment
     public static final String ROOM_URL_KEY = "roomUrl";
 
+    // Whether the room is entered through the session resume fast path
+    public static final String WARM_JOIN_KEY = "warmJoin";
+
+    // SystemClock.elapsedRealtime() at which the join was started, used to measure join latency
+    public static final String JOIN_STARTED_AT_KEY = "joinStartedAt";
+
+    // Runtime permissions denied during the pre-flight in MainActivity, as a String[]
+    public static final String PREFLIGHT_DENIED_PERMISSIONS_KEY = "preflightDeniedPermissions";
+
+    // ResultReceiver through which a room in the call process reports back, see CallProcessChannel
+    public static final String CALL_RESULT_RECEIVER_KEY = "callResultReceiver";
+
+    // When true, MainActivity requests camera/microphone before launching the room,
+    // so the page's own permission request is answered without a system dialog
+    public static final boolean MEDIA_PERMISSION_PREFLIGHT_ENABLED = false;
+
+    // Name of the WebViewPerformanceProfile preset rooms are configured with (e.g., "kiosk",
+    // "battery saver"); null picks one suited to the device
+    public static final String PERFORMANCE_PROFILE = null;
+
+    // When true, trace events are also written to a Chrome JSON trace file in the app's external files dir
+    public static final boolean TRACE_RECORDING_ENABLED = false;
+
+    // When true, rooms launched as an Activity run in the separate ":call" process
+    // (CallProcessWebViewActivity), isolating the WebView's memory and crashes from the launcher
+    public static final boolean CALL_PROCESS_ENABLED = false;
+
     private Constants() {
         // Prevent instantiation
     }
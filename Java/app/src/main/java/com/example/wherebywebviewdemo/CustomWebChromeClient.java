@@ -2,6 +2,7 @@ package com.example.wherebywebviewdemo;
 
 import android.content.Intent;
 import android.os.Build;
+import android.webkit.ConsoleMessage;
 import android.webkit.PermissionRequest;
 import android.webkit.ValueCallback;
 import android.webkit.WebChromeClient;
@@ -12,6 +13,7 @@ import androidx.annotation.RequiresApi;
 /**
  * CustomWebChromeClient extends WebChromeClient to handle runtime permission
  * requests (e.g., camera, microphone) and file chooser interactions for file uploads.
+ * Console messages of the page are kept in a ConsoleLog rather than sent to logcat.
  */
 public class CustomWebChromeClient extends WebChromeClient {
 
@@ -21,6 +23,7 @@ public class CustomWebChromeClient extends WebChromeClient {
 
     private final PermissionsManager permissionsManager;
     private final FileUploadHandler fileUploadHandler;
+    private final ConsoleLog consoleLog = new ConsoleLog();
 
     // ─────────────────────────────────────────────
     // Constructor
@@ -50,7 +53,12 @@ public class CustomWebChromeClient extends WebChromeClient {
     @RequiresApi(api = Build.VERSION_CODES.M)
     @Override
     public void onPermissionRequest(final PermissionRequest request) {
-        permissionsManager.checkAndRequestPermissionsForWebViewRequest(request);
+        TraceRecorder.beginSection("CustomWebChromeClient.onPermissionRequest");
+        try {
+            permissionsManager.checkAndRequestPermissionsForWebViewRequest(request);
+        } finally {
+            TraceRecorder.endSection();
+        }
     }
 
     // ─────────────────────────────────────────────
@@ -68,8 +76,13 @@ public class CustomWebChromeClient extends WebChromeClient {
      */
     @Override
     public boolean onShowFileChooser(WebView webView, ValueCallback<android.net.Uri[]> filePathCallback, FileChooserParams fileChooserParams) {
-        Intent intent = fileChooserParams.createIntent();
-        return fileUploadHandler.showFileChooser(intent, filePathCallback);
+        TraceRecorder.beginSection("CustomWebChromeClient.onShowFileChooser");
+        try {
+            Intent intent = fileChooserParams.createIntent();
+            return fileUploadHandler.showFileChooser(intent, filePathCallback);
+        } finally {
+            TraceRecorder.endSection();
+        }
     }
 
     /**
@@ -81,4 +94,27 @@ public class CustomWebChromeClient extends WebChromeClient {
     public void handleFileChooserResult(int resultCode, Intent data) {
         fileUploadHandler.handleFileChooserResult(resultCode, data);
     }
+
+    // ─────────────────────────────────────────────
+    // Console Messages
+    // ─────────────────────────────────────────────
+
+    /**
+     * Records the message in the console ring buffer.
+     *
+     * @return true, so the WebView does not also write the message to logcat.
+     */
+    @Override
+    public boolean onConsoleMessage(ConsoleMessage consoleMessage) {
+        consoleLog.record(consoleMessage);
+        return true;
+    }
+
+    /**
+     * @return The console messages recorded for this client's WebView(s), kept across
+     * renderer crash recoveries since the client is reused.
+     */
+    public ConsoleLog getConsoleLog() {
+        return consoleLog;
+    }
 }
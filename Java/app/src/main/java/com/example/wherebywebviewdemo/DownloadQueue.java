@@ -0,0 +1,449 @@
+package com.example.wherebywebviewdemo;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DownloadQueue is a small persistent journal of downloads waiting to be saved. Each
+ * download is staged in the app's files directory as two files:
+ * - "<id>.data": the decoded content,
+ * - "<id>.json": the journal entry (MIME type, file name, target, attempts).
+ *
+ * Entries are written to a temporary file and renamed into place, so a reader in
+ * another process (the call process stages, the launcher process saves) never sees a
+ * partial entry. A staged download survives the Activity, the room and the process: an
+ * interrupted save starts again from the staged data instead of the room.
+ *
+ * Saving holds a file lock on the entry, which the system drops if the process dies.
+ */
+public class DownloadQueue {
+
+    /**
+     * A staged download, as read from the journal.
+     */
+    public static final class Entry {
+        public final String id;
+        public final String mimeType;
+        public final String displayName;
+        public final boolean isMedia;
+        public final long createdAtMs;
+        // Media only: content hash for the deduplication index
+        final @Nullable String contentHash;
+        // Documents only: where the user chose to save, or null while the picker is open
+        @Nullable String targetUri;
+        // Media only: the MediaStore entry of an interrupted attempt, removed before retrying
+        @Nullable String partialUri;
+        int attempts;
+
+        Entry(String id, String mimeType, String displayName, boolean isMedia, long createdAtMs,
+              @Nullable String contentHash) {
+            this.id = id;
+            this.mimeType = mimeType;
+            this.displayName = displayName;
+            this.isMedia = isMedia;
+            this.createdAtMs = createdAtMs;
+            this.contentHash = contentHash;
+        }
+
+        /**
+         * @return true if the entry can be saved without asking the user anything.
+         */
+        public boolean isReady() {
+            return isMedia || targetUri != null;
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    private static final String TAG = "DownloadQueue";
+    private static final String DIRECTORY_NAME = "download_queue";
+    private static final String DATA_SUFFIX = ".data";
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final String IMAGE_ALBUM_NAME = "android-java-embedded-demo-app";
+    private static final String VIDEO_ALBUM_NAME = "YourAppName";
+
+    static final int MAX_ATTEMPTS = 3;
+    // Documents whose picker never returned are dropped after this long
+    private static final long MAX_AWAITING_LOCATION_MS = TimeUnit.DAYS.toMillis(1);
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final Context context;
+    private final File directory;
+
+    public DownloadQueue(Context context) {
+        this.context = context.getApplicationContext();
+        this.directory = new File(this.context.getFilesDir(), DIRECTORY_NAME);
+    }
+
+    // ─────────────────────────────────────────────
+    // Staging
+    // ─────────────────────────────────────────────
+
+    /**
+     * Writes the content and its journal entry to disk.
+     *
+     * @param contentHash Hash of the content for media, see SavedDownloadIndex.computeHash().
+     */
+    public Entry stage(byte[] data, String mimeType, String displayName, boolean isMedia,
+                       @Nullable String contentHash) throws IOException {
+        TraceRecorder.beginSection("DownloadQueue.stage");
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create directory " + directory);
+            }
+
+            Entry entry = new Entry(UUID.randomUUID().toString(), mimeType, displayName, isMedia,
+                    System.currentTimeMillis(), contentHash);
+
+            // No fsync: staged data has to survive the process, not a power loss
+            File dataFile = dataFile(entry.id);
+            try (FileOutputStream output = new FileOutputStream(dataFile)) {
+                output.write(data);
+            } catch (IOException e) {
+                dataFile.delete();
+                throw e;
+            }
+
+            try {
+                writeEntry(entry);
+            } catch (IOException e) {
+                dataFile.delete();
+                throw e;
+            }
+            return entry;
+        } finally {
+            TraceRecorder.endSection();
+        }
+    }
+
+    /**
+     * Records where a document is to be saved, making it ready.
+     */
+    public void setTarget(Entry entry, Uri targetUri) throws IOException {
+        entry.targetUri = targetUri.toString();
+        writeEntry(entry);
+    }
+
+    /**
+     * Removes an entry and its staged content.
+     */
+    public void discard(Entry entry) {
+        discard(entry.id);
+    }
+
+    // ─────────────────────────────────────────────
+    // Journal
+    // ─────────────────────────────────────────────
+
+    public @Nullable Entry find(String id) {
+        return readEntry(new File(directory, id + ENTRY_SUFFIX));
+    }
+
+    /**
+     * @return All entries, oldest first.
+     */
+    public List<Entry> getEntries() {
+        List<Entry> entries = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) return entries;
+
+        for (File file : files) {
+            if (!file.getName().endsWith(ENTRY_SUFFIX)) continue;
+
+            Entry entry = readEntry(file);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        Collections.sort(entries, (a, b) -> Long.compare(a.createdAtMs, b.createdAtMs));
+        return entries;
+    }
+
+    /**
+     * @return The oldest document still waiting for the user to pick a location, or null.
+     * Used to match a picker result delivered to a re-created process.
+     */
+    public @Nullable Entry findOldestAwaitingLocation() {
+        for (Entry entry : getEntries()) {
+            if (!entry.isReady()) return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Drops documents whose picker result never came back, and staged files whose
+     * journal entry was never written.
+     */
+    public void pruneAbandoned() {
+        long now = System.currentTimeMillis();
+        for (Entry entry : getEntries()) {
+            if (!entry.isReady() && now - entry.createdAtMs > MAX_AWAITING_LOCATION_MS) {
+                Log.i(TAG, "Dropping " + entry.displayName + ": no save location was picked");
+                discard(entry);
+            }
+        }
+
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(DATA_SUFFIX)) {
+                String id = name.substring(0, name.length() - DATA_SUFFIX.length());
+                if (!new File(directory, id + ENTRY_SUFFIX).exists()
+                        && now - file.lastModified() > MAX_AWAITING_LOCATION_MS) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Saving
+    // ─────────────────────────────────────────────
+
+    /**
+     * Outcome of a save attempt.
+     */
+    public enum Result {
+        SAVED, ALREADY_SAVED, RETRY, FAILED, BUSY
+    }
+
+    /**
+     * Saves a ready entry to its target and removes it from the journal. A failed
+     * attempt keeps the entry for a retry, until MAX_ATTEMPTS is reached.
+     *
+     * @return BUSY if another thread or process is saving the entry, or it could not be locked.
+     */
+    @WorkerThread
+    public Result save(Entry entry) {
+        if (!entry.isReady()) {
+            throw new IllegalStateException("Entry " + entry.id + " has no save location");
+        }
+
+        File dataFile = dataFile(entry.id);
+        if (!dataFile.exists()) {
+            // The staged content is gone (e.g., storage cleared); nothing left to retry
+            Log.w(TAG, "Staged content of " + entry.displayName + " is missing");
+            discard(entry);
+            return Result.FAILED;
+        }
+
+        try (RandomAccessFile lockFile = new RandomAccessFile(dataFile, "rw")) {
+            FileLock lock;
+            try {
+                lock = lockFile.getChannel().tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) return Result.BUSY;
+
+            // Another worker may have completed the entry since it was listed
+            Entry current = find(entry.id);
+            if (current == null) return Result.BUSY;
+
+            return saveLocked(current);
+        } catch (IOException e) {
+            // Left in the journal for the next run
+            Log.w(TAG, "Could not lock staged content of " + entry.displayName, e);
+            return Result.BUSY;
+        }
+    }
+
+    private Result saveLocked(Entry entry) {
+        TraceRecorder.beginSection("DownloadQueue.save");
+        SavedDownloadIndex savedDownloadIndex = entry.isMedia ? new SavedDownloadIndex(context) : null;
+        try {
+            if (savedDownloadIndex != null) {
+                if (entry.contentHash != null && savedDownloadIndex.findExisting(entry.contentHash) != null) {
+                    discard(entry);
+                    return Result.ALREADY_SAVED;
+                }
+                if (entry.partialUri != null) {
+                    context.getContentResolver().delete(Uri.parse(entry.partialUri), null, null);
+                    entry.partialUri = null;
+                }
+            }
+
+            entry.attempts++;
+            writeEntry(entry);
+
+            Uri savedUri = entry.isMedia ? saveMedia(entry) : saveDocument(entry);
+
+            if (savedDownloadIndex != null && entry.contentHash != null) {
+                savedDownloadIndex.put(entry.contentHash, savedUri);
+            }
+            if (!entry.isMedia) {
+                releaseUriPermission(savedUri);
+            }
+            discard(entry);
+            return Result.SAVED;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Attempt " + entry.attempts + " to save " + entry.displayName + " failed", e);
+            if (entry.attempts >= MAX_ATTEMPTS) {
+                if (!entry.isMedia && entry.targetUri != null) {
+                    releaseUriPermission(Uri.parse(entry.targetUri));
+                }
+                discard(entry);
+                return Result.FAILED;
+            }
+            return Result.RETRY;
+        } finally {
+            TraceRecorder.endSection();
+        }
+    }
+
+    private Uri saveMedia(Entry entry) throws IOException {
+        String albumName = entry.mimeType.startsWith("image/") ? IMAGE_ALBUM_NAME : VIDEO_ALBUM_NAME;
+        try (DownloadSink sink = DownloadSink.openMedia(context, entry.displayName, entry.mimeType, albumName)) {
+            // Remembered so a retry after a process death can remove the half-written
+            // MediaStore entry; legacy temporary files are simply overwritten
+            Uri targetUri = sink.getTargetUri();
+            if ("content".equals(targetUri.getScheme())) {
+                entry.partialUri = targetUri.toString();
+                writeEntry(entry);
+            }
+
+            copyStagedData(entry, sink);
+            return sink.commit();
+        }
+    }
+
+    private Uri saveDocument(Entry entry) throws IOException {
+        try (DownloadSink sink = DownloadSink.openDocument(context, Uri.parse(entry.targetUri))) {
+            copyStagedData(entry, sink);
+            return sink.commit();
+        }
+    }
+
+    private void copyStagedData(Entry entry, DownloadSink sink) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(DownloadSink.BUFFER_SIZE);
+        try (FileChannel channel = new FileInputStream(dataFile(entry.id)).getChannel()) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                sink.write(buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    private File dataFile(String id) {
+        return new File(directory, id + DATA_SUFFIX);
+    }
+
+    private void discard(String id) {
+        // Journal entry first, so the content is never referenced without existing
+        new File(directory, id + ENTRY_SUFFIX).delete();
+        dataFile(id).delete();
+    }
+
+    private void writeEntry(Entry entry) throws IOException {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("id", entry.id);
+            json.put("mimeType", entry.mimeType);
+            json.put("displayName", entry.displayName);
+            json.put("isMedia", entry.isMedia);
+            json.put("createdAtMs", entry.createdAtMs);
+            json.put("contentHash", entry.contentHash);
+            json.put("targetUri", entry.targetUri);
+            json.put("partialUri", entry.partialUri);
+            json.put("attempts", entry.attempts);
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+
+        File file = new File(directory, entry.id + ENTRY_SUFFIX);
+        File tempFile = new File(directory, entry.id + ENTRY_SUFFIX + TEMP_SUFFIX);
+        try (FileOutputStream output = new FileOutputStream(tempFile)) {
+            output.write(json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Could not write journal entry " + file);
+        }
+    }
+
+    private static @Nullable Entry readEntry(File file) {
+        if (!file.exists()) return null;
+
+        try (FileInputStream input = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                int count = input.read(bytes, read, bytes.length - read);
+                if (count < 0) break;
+                read += count;
+            }
+
+            JSONObject json = new JSONObject(new String(bytes, 0, read, StandardCharsets.UTF_8));
+            Entry entry = new Entry(
+                    json.getString("id"),
+                    json.getString("mimeType"),
+                    json.getString("displayName"),
+                    json.getBoolean("isMedia"),
+                    json.getLong("createdAtMs"),
+                    optString(json, "contentHash")
+            );
+            entry.targetUri = optString(json, "targetUri");
+            entry.partialUri = optString(json, "partialUri");
+            entry.attempts = json.optInt("attempts");
+            return entry;
+        } catch (IOException | JSONException e) {
+            // A corrupt entry cannot be saved; it is dropped along with its content
+            Log.w(TAG, "Dropping unreadable journal entry " + file.getName(), e);
+            String name = file.getName();
+            file.delete();
+            new File(file.getParentFile(), name.substring(0, name.length() - ENTRY_SUFFIX.length()) + DATA_SUFFIX)
+                    .delete();
+            return null;
+        }
+    }
+
+    private static @Nullable String optString(JSONObject json, String key) {
+        return json.isNull(key) ? null : json.optString(key, null);
+    }
+
+    private void releaseUriPermission(Uri uri) {
+        try {
+            context.getContentResolver().releasePersistableUriPermission(uri,
+                    Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
+        } catch (SecurityException ignored) {
+            // No persisted grant was taken (the provider did not offer one)
+        }
+    }
+}
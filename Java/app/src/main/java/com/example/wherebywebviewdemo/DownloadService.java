@@ -0,0 +1,213 @@
+package com.example.wherebywebviewdemo;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.widget.Toast;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * DownloadService saves the downloads staged in the DownloadQueue, independently of the
+ * room's Activity or Fragment. It runs in the launcher process, in the foreground while
+ * there is work, so a download the user started keeps going when the room is left or
+ * the app is backgrounded.
+ *
+ * The service is sticky: if its process is killed mid-save, the system restarts it and
+ * it resumes from the journal. Pending entries are also resumed on the next app start.
+ */
+public class DownloadService extends Service {
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    private static final String TAG = "DownloadService";
+    private static final String EXTRA_ENTRY_ID = "entryId";
+    private static final String EXTRA_STARTED_AT_NANOS = "startedAtNanos";
+    private static final String CHANNEL_ID = "downloads";
+    private static final int NOTIFICATION_ID = 4301;
+    private static final long RETRY_DELAY_MS = 2_000;
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // When the page asked for each download, for BridgeEvents; System.nanoTime() is shared across processes
+    private final Map<String, Long> startedAtNanosById = new ConcurrentHashMap<>();
+    private DownloadQueue downloadQueue;
+
+    // ─────────────────────────────────────────────
+    // Starting
+    // ─────────────────────────────────────────────
+
+    /**
+     * Hands a staged entry to the service.
+     *
+     * @param startedAtNanos When the page asked for the download (System.nanoTime()).
+     */
+    public static void enqueue(Context context, DownloadQueue.Entry entry, long startedAtNanos) {
+        Intent intent = new Intent(context, DownloadService.class)
+                .putExtra(EXTRA_ENTRY_ID, entry.id)
+                .putExtra(EXTRA_STARTED_AT_NANOS, startedAtNanos);
+        ContextCompat.startForegroundService(context, intent);
+    }
+
+    /**
+     * Starts the service if downloads were left ready to save, e.g. by a killed process.
+     * Should be called while the app is in the foreground.
+     */
+    public static void resumeIfPending(Context context) {
+        for (DownloadQueue.Entry entry : new DownloadQueue(context).getEntries()) {
+            if (entry.isReady()) {
+                ContextCompat.startForegroundService(context, new Intent(context, DownloadService.class));
+                return;
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Service
+    // ─────────────────────────────────────────────
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        downloadQueue = new DownloadQueue(this);
+    }
+
+    @Override
+    public int onStartCommand(@Nullable Intent intent, int flags, int startId) {
+        startInForeground();
+
+        if (intent != null && intent.hasExtra(EXTRA_ENTRY_ID)) {
+            startedAtNanosById.put(intent.getStringExtra(EXTRA_ENTRY_ID),
+                    intent.getLongExtra(EXTRA_STARTED_AT_NANOS, System.nanoTime()));
+        }
+
+        // Runs in order, so only the drain of the latest start stops the service
+        executor.execute(() -> {
+            drain();
+            mainHandler.post(() -> stopSelf(startId));
+        });
+        return START_STICKY;
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        executor.shutdown();
+    }
+
+    // ─────────────────────────────────────────────
+    // Saving
+    // ─────────────────────────────────────────────
+
+    /**
+     * Saves every ready entry, retrying failed attempts until the queue is empty or only
+     * holds entries that are waiting for a location or being saved elsewhere.
+     */
+    private void drain() {
+        downloadQueue.pruneAbandoned();
+
+        boolean retry = true;
+        while (retry) {
+            retry = false;
+            List<DownloadQueue.Entry> entries = downloadQueue.getEntries();
+            for (DownloadQueue.Entry entry : entries) {
+                if (!entry.isReady()) continue;
+
+                DownloadQueue.Result result = downloadQueue.save(entry);
+                Log.i(TAG, entry.displayName + ": " + result);
+                if (result == DownloadQueue.Result.RETRY) {
+                    retry = true;
+                    continue;
+                }
+                if (result != DownloadQueue.Result.BUSY) {
+                    onCompleted(entry, result);
+                }
+            }
+            if (retry) {
+                // Attempts are bounded by DownloadQueue.MAX_ATTEMPTS
+                SystemClock.sleep(RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    private void onCompleted(DownloadQueue.Entry entry, DownloadQueue.Result result) {
+        boolean saved = result == DownloadQueue.Result.SAVED || result == DownloadQueue.Result.ALREADY_SAVED;
+
+        Long startedAtNanos = startedAtNanosById.remove(entry.id);
+        if (startedAtNanos != null) {
+            BridgeEvents.report(BridgeEvents.DOWNLOAD, startedAtNanos, saved);
+        }
+
+        String message;
+        if (result == DownloadQueue.Result.ALREADY_SAVED) {
+            message = "File already saved";
+        } else if (!saved) {
+            message = "Failed to save " + entry.displayName;
+        } else if (entry.mimeType.startsWith("image/")) {
+            message = "Image saved to gallery";
+        } else if (entry.mimeType.startsWith("video/")) {
+            message = "Video saved to gallery";
+        } else {
+            message = "File saved successfully";
+        }
+        mainHandler.post(() -> Toast.makeText(getApplicationContext(), message, Toast.LENGTH_SHORT).show());
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    private void startInForeground() {
+        NotificationManager notificationManager =
+                (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        Notification.Builder builder;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            notificationManager.createNotificationChannel(new NotificationChannel(
+                    CHANNEL_ID, "Downloads", NotificationManager.IMPORTANCE_LOW));
+            builder = new Notification.Builder(this, CHANNEL_ID);
+        } else {
+            builder = new Notification.Builder(this);
+        }
+        Notification notification = builder
+                .setSmallIcon(android.R.drawable.stat_sys_download)
+                .setContentTitle("Saving downloads")
+                .setOngoing(true)
+                .build();
+
+        try {
+            startForeground(NOTIFICATION_ID, notification);
+        } catch (RuntimeException e) {
+            // E.g., a sticky restart while the app is in the background (API 31+): save
+            // what we can as a background service, the rest resumes on the next app start
+            Log.w(TAG, "Could not start in the foreground", e);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.wherebywebviewdemo;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.provider.MediaStore;
+
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * DownloadSink is the single write path for downloaded files, whatever their target:
+ * - a MediaStore entry on API 29+, inserted as pending and published on commit,
+ * - a file in the app's external media directory before API 29, written to a
+ *   temporary file and renamed on commit,
+ * - a document Uri picked by the user through the Storage Access Framework.
+ *
+ * Data is accepted incrementally, staged in a large buffer and written through a
+ * FileChannel. A sink that is closed without being committed removes its partial
+ * entry, so callers can rely on try-with-resources for cleanup on failure.
+ */
+public final class DownloadSink implements Closeable {
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    public static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final String TEMP_FILE_SUFFIX = ".part";
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final ContentResolver contentResolver;
+    private final Uri targetUri;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // Set for pending MediaStore entries (API 29+)
+    private final boolean isPendingMediaEntry;
+    // Set for legacy file targets (before API 29)
+    private final @Nullable File tempFile;
+    private final @Nullable File finalFile;
+    // Set for user-picked documents
+    private final boolean isDocument;
+
+    private boolean committed = false;
+    private boolean closed = false;
+
+    private DownloadSink(
+            ContentResolver contentResolver,
+            Uri targetUri,
+            FileChannel channel,
+            boolean isPendingMediaEntry,
+            @Nullable File tempFile,
+            @Nullable File finalFile,
+            boolean isDocument
+    ) {
+        this.contentResolver = contentResolver;
+        this.targetUri = targetUri;
+        this.channel = channel;
+        this.isPendingMediaEntry = isPendingMediaEntry;
+        this.tempFile = tempFile;
+        this.finalFile = finalFile;
+        this.isDocument = isDocument;
+    }
+
+    // ─────────────────────────────────────────────
+    // Factories
+    // ─────────────────────────────────────────────
+
+    /**
+     * Opens a sink that saves an image or a video to the shared gallery.
+     *
+     * @param context     Context used to reach the ContentResolver and storage directories.
+     * @param displayName File name, including its extension.
+     * @param mimeType    MIME type of the content; "video/*" goes to Movies, anything else to Pictures.
+     * @param albumName   Sub-directory of Pictures/Movies in which the file is placed.
+     */
+    public static DownloadSink openMedia(Context context, String displayName, String mimeType, String albumName)
+            throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+        boolean isVideo = mimeType.startsWith("video/");
+        String directory = isVideo ? Environment.DIRECTORY_MOVIES : Environment.DIRECTORY_PICTURES;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Uri collection = isVideo
+                    ? MediaStore.Video.Media.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY)
+                    : MediaStore.Images.Media.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY);
+
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.MediaColumns.DISPLAY_NAME, displayName);
+            values.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
+            values.put(MediaStore.MediaColumns.RELATIVE_PATH, directory + "/" + albumName);
+            // Hide the entry from the gallery until it is fully written
+            values.put(MediaStore.MediaColumns.IS_PENDING, 1);
+
+            Uri uri = resolver.insert(collection, values);
+            if (uri == null) {
+                throw new IOException("Could not create a MediaStore entry");
+            }
+
+            try {
+                return new DownloadSink(resolver, uri, openChannel(resolver, uri, "w"), true, null, null, false);
+            } catch (IOException e) {
+                resolver.delete(uri, null, null);
+                throw e;
+            }
+        }
+
+        File albumDir = new File(context.getExternalFilesDir(directory), albumName);
+        if (!albumDir.isDirectory() && !albumDir.mkdirs()) {
+            throw new IOException("Could not create directory " + albumDir);
+        }
+
+        File finalFile = new File(albumDir, displayName);
+        File tempFile = new File(albumDir, displayName + TEMP_FILE_SUFFIX);
+        FileChannel channel = new FileOutputStream(tempFile).getChannel();
+        return new DownloadSink(resolver, Uri.fromFile(finalFile), channel, false, tempFile, finalFile, false);
+    }
+
+    /**
+     * Opens a sink that writes to a document the user picked (e.g., via ACTION_CREATE_DOCUMENT).
+     * Existing content is truncated.
+     */
+    public static DownloadSink openDocument(Context context, Uri documentUri) throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+        return new DownloadSink(resolver, documentUri, openChannel(resolver, documentUri, "wt"), false, null, null, true);
+    }
+
+    // ─────────────────────────────────────────────
+    // Writing
+    // ─────────────────────────────────────────────
+
+    /**
+     * @return The Uri the content is written to. For MediaStore entries, the entry stays
+     * pending until commit().
+     */
+    public Uri getTargetUri() {
+        return targetUri;
+    }
+
+    /**
+     * Appends a chunk of data. Small chunks are coalesced in the internal buffer.
+     */
+    public void write(byte[] data, int offset, int length) throws IOException {
+        ensureOpen();
+
+        TraceRecorder.beginSection("DownloadSink.write");
+        try {
+            int end = offset + length;
+            while (offset < end) {
+                int count = Math.min(buffer.remaining(), end - offset);
+                buffer.put(data, offset, count);
+                offset += count;
+
+                if (!buffer.hasRemaining()) {
+                    drainBuffer();
+                }
+            }
+        } finally {
+            TraceRecorder.endSection();
+        }
+    }
+
+    /**
+     * Appends all remaining bytes of the given buffer.
+     */
+    public void write(ByteBuffer data) throws IOException {
+        ensureOpen();
+
+        while (data.hasRemaining()) {
+            if (buffer.position() == 0 && data.remaining() >= BUFFER_SIZE) {
+                // Large chunks bypass the staging buffer
+                channel.write(data);
+                continue;
+            }
+
+            int count = Math.min(buffer.remaining(), data.remaining());
+            ByteBuffer slice = data.duplicate();
+            slice.limit(slice.position() + count);
+            buffer.put(slice);
+            data.position(data.position() + count);
+
+            if (!buffer.hasRemaining()) {
+                drainBuffer();
+            }
+        }
+    }
+
+    /**
+     * Flushes all data to storage and makes the target visible: clears IS_PENDING on
+     * MediaStore entries and moves legacy temporary files into place. Documents are only
+     * synced if their provider's descriptor supports it.
+     *
+     * @return The Uri of the saved content.
+     */
+    public Uri commit() throws IOException {
+        ensureOpen();
+
+        TraceRecorder.beginSection("DownloadSink.commit");
+        try {
+            drainBuffer();
+            if (isDocument) {
+                try {
+                    channel.force(true);
+                } catch (IOException ignored) {
+                    // Providers may hand out pipes or sockets, which cannot be synced
+                    // (EINVAL); the data has been written, durability is up to the provider
+                }
+            } else {
+                channel.force(true);
+            }
+            closed = true;
+            channel.close();
+        } finally {
+            TraceRecorder.endSection();
+        }
+
+        if (isPendingMediaEntry && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.MediaColumns.IS_PENDING, 0);
+            contentResolver.update(targetUri, values, null, null);
+        } else if (tempFile != null && finalFile != null && !tempFile.renameTo(finalFile)) {
+            tempFile.delete();
+            throw new IOException("Could not move " + tempFile + " to " + finalFile);
+        }
+
+        committed = true;
+        return targetUri;
+    }
+
+    /**
+     * Closes the sink. If it has not been committed, the partial entry is removed.
+     */
+    @Override
+    public void close() {
+        if (committed) return;
+
+        if (!closed) {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Best effort: the partial entry is removed below anyway
+            }
+        }
+
+        if (isPendingMediaEntry) {
+            contentResolver.delete(targetUri, null, null);
+        } else if (tempFile != null) {
+            tempFile.delete();
+        } else if (isDocument) {
+            try {
+                DocumentsContract.deleteDocument(contentResolver, targetUri);
+            } catch (FileNotFoundException | RuntimeException ignored) {
+                // Not every provider supports deletion; leave the (truncated) document in place
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    private void drainBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Sink is already closed");
+        }
+    }
+
+    private static FileChannel openChannel(ContentResolver resolver, Uri uri, String mode) throws IOException {
+        ParcelFileDescriptor descriptor = resolver.openFileDescriptor(uri, mode);
+        if (descriptor == null) {
+            throw new IOException("Could not open " + uri);
+        }
+        // The stream owns the descriptor and closes it along with the channel
+        return new ParcelFileDescriptor.AutoCloseOutputStream(descriptor).getChannel();
+    }
+}
@@ -3,31 +3,32 @@ package com.example.wherebywebviewdemo;
 import static android.app.Activity.RESULT_OK;
 
 import android.app.Activity;
-import android.content.ContentValues;
 import android.content.Intent;
 import android.net.Uri;
-import android.os.Build;
-import android.os.Environment;
-import android.provider.MediaStore;
+import android.util.Log;
 import android.util.Base64;
 import android.webkit.JavascriptInterface;
 import android.webkit.WebView;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
-
 import org.json.JSONObject;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * FileDownloadHandler is responsible for decoding Base64 blobs received from JavaScript,
  * and saving them to the device either via the media store (for images/videos) or
  * by prompting the user with a file picker (for generic files).
+ *
+ * Payloads are decoded, hashed and staged in the DownloadQueue on a background thread,
+ * and saved by DownloadService, so a save is not lost with the Activity or the process.
+ * Only the Toasts and the file picker run on the UI thread.
  */
 public class FileDownloadHandler {
 
@@ -35,15 +36,42 @@ public class FileDownloadHandler {
     // Fields
     // ─────────────────────────────────────────────
 
+    private static final String TAG = "FileDownloadHandler";
     private static final String JS_INTERFACE_NAME = "fileDownloadHandler";
+    private static final String BYTES_IN_FLIGHT_COUNTER = "downloadBytesInFlight";
+
+    // Shared by every room, so payloads are staged one at a time and in arrival order
+    private static final ExecutorService stagingExecutor = Executors.newSingleThreadExecutor();
 
     private final Activity activity;
+    private final Executor executor;
     private final ActivityResultLauncher<Intent> fileDownloadPickerLauncher;
-    private byte[] base64DecodedFileBytes;
+    private final DownloadQueue downloadQueue;
+    // Staged files waiting for the user to pick a save location, in launch order
+    private final ArrayDeque<PendingPickerFile> pendingPickerFiles = new ArrayDeque<>();
+
+    private static final class PendingPickerFile {
+        final DownloadQueue.Entry entry;
+        final long startedAtNanos;
+
+        PendingPickerFile(DownloadQueue.Entry entry, long startedAtNanos) {
+            this.entry = entry;
+            this.startedAtNanos = startedAtNanos;
+        }
+    }
 
     public FileDownloadHandler(Activity activity, ActivityResultLauncher<Intent> launcher) {
+        this(activity, launcher, stagingExecutor);
+    }
+
+    /**
+     * @param executor Runs the decoding and staging of payloads, off the UI thread.
+     */
+    FileDownloadHandler(Activity activity, ActivityResultLauncher<Intent> launcher, Executor executor) {
         this.activity = activity;
+        this.executor = executor;
         this.fileDownloadPickerLauncher = launcher;
+        this.downloadQueue = new DownloadQueue(activity);
     }
 
     /**
@@ -68,6 +96,31 @@ public class FileDownloadHandler {
         });
     }
 
+    /**
+     * Reverses attachToWebView(), so the WebView no longer references this handler
+     * (and through it, the Activity) once the room is closed.
+     */
+    public void detachFromWebView(WebView webView) {
+        webView.removeJavascriptInterface(JS_INTERFACE_NAME);
+        webView.setDownloadListener(null);
+    }
+
+    /**
+     * Drops the files still waiting for a save location. Should only be called when the
+     * host is finishing for good, as their picker results will never be delivered. A host
+     * destroyed by the system may be re-created to receive the result, which is then
+     * matched with findOldestAwaitingLocation(); entries it never gets are dropped by
+     * pruneAbandoned(). Files that already have a location keep being saved by
+     * DownloadService.
+     */
+    public void release() {
+        for (PendingPickerFile pendingFile : pendingPickerFiles) {
+            downloadQueue.discard(pendingFile.entry);
+            BridgeEvents.report(BridgeEvents.DOWNLOAD, pendingFile.startedAtNanos, false);
+        }
+        pendingPickerFiles.clear();
+    }
+
     /**
      * Injects JavaScript into the given WebView to fetch and decode a blob URL,
      * convert it into a Base64 string using a FileReader, and pass the resulting
@@ -101,26 +154,43 @@ public class FileDownloadHandler {
      */
     @JavascriptInterface
     public void handleBlobFromJs(String jsonPayload) {
-        activity.runOnUiThread(() -> {
+        final long startedAtNanos = System.nanoTime();
+        final int traceCookie = TraceRecorder.beginAsyncSection("blobDownload");
+        final long payloadLength = jsonPayload.length();
+        TraceRecorder.adjustCounter(BYTES_IN_FLIGHT_COUNTER, payloadLength);
+        FrameMonitor.beginTagged(FrameMonitor.Tag.DOWNLOAD);
+
+        executor.execute(() -> {
+            TraceRecorder.beginSection("FileDownloadHandler.handleBlobFromJs");
             try {
                 JSONObject json = new JSONObject(jsonPayload);
                 String mime = json.optString("mime", "application/octet-stream");
                 String base64Data = json.getString("data");
 
-                String parsedBase64Data = base64Data.startsWith("data:") ? base64Data.split(",")[1] : base64Data;
-                byte[] fileData = Base64.decode(parsedBase64Data, Base64.DEFAULT);
+                TraceRecorder.beginSection("FileDownloadHandler.decodeBase64");
+                byte[] fileData;
+                try {
+                    String parsedBase64Data = base64Data.startsWith("data:") ? base64Data.split(",")[1] : base64Data;
+                    fileData = Base64.decode(parsedBase64Data, Base64.DEFAULT);
+                } finally {
+                    TraceRecorder.endSection();
+                }
                 String fileName = "file_" + UUID.randomUUID();
 
-                if (mime.startsWith("image/")) {
-                    saveImageToGallery(fileName, fileData, mime);
-                } else if (mime.startsWith("video/")) {
-                    saveVideoToGallery(fileName, fileData, mime);
+                if (mime.startsWith("image/") || mime.startsWith("video/")) {
+                    stageMedia(fileName, fileData, mime, startedAtNanos);
                 } else {
-                    File tempFile = new File(activity.getCacheDir(), UUID.randomUUID() + "_blobfile");
-                    presentFilePickerAndSave(mime, fileName, tempFile, fileData);
+                    presentFilePickerAndSave(mime, fileName, fileData, startedAtNanos);
                 }
             } catch (Exception e) {
-                Toast.makeText(activity, "Error saving file: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                activity.runOnUiThread(() ->
+                        Toast.makeText(activity, "Error saving file: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                BridgeEvents.report(BridgeEvents.DOWNLOAD, startedAtNanos, false);
+            } finally {
+                TraceRecorder.endSection();
+                TraceRecorder.adjustCounter(BYTES_IN_FLIGHT_COUNTER, -payloadLength);
+                TraceRecorder.endAsyncSection("blobDownload", traceCookie);
+                FrameMonitor.endTagged(FrameMonitor.Tag.DOWNLOAD);
             }
         });
     }
@@ -129,95 +199,78 @@ public class FileDownloadHandler {
     // Private Save Methods
     // ─────────────────────────────────────────────
 
-    private void saveImageToGallery(String fileName, byte[] imageData, String mimeType) {
-        String fileExtension = getFileExtensionFromMimeType(mimeType);
-        String fullFileName = fileName + fileExtension;
-
-        ContentValues values = new ContentValues();
-        values.put(MediaStore.Images.Media.DISPLAY_NAME, fullFileName);
-        values.put(MediaStore.Images.Media.MIME_TYPE, mimeType);
-        values.put(MediaStore.Images.Media.RELATIVE_PATH, "Pictures/android-java-embedded-demo-app");
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            Uri uri = activity.getContentResolver().insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
-            try (OutputStream outputStream = activity.getContentResolver().openOutputStream(uri)) {
-                outputStream.write(imageData);
-                outputStream.flush();
-                Toast.makeText(activity, "Image saved to gallery", Toast.LENGTH_SHORT).show();
-            } catch (IOException e) {
-                Toast.makeText(activity, "Failed to save image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        } else {
-            File imageFile = new File(activity.getExternalFilesDir(Environment.DIRECTORY_PICTURES), fullFileName);
-            try (FileOutputStream fos = new FileOutputStream(imageFile)) {
-                fos.write(imageData);
-                fos.flush();
-                Toast.makeText(activity, "Image saved successfully", Toast.LENGTH_SHORT).show();
-            } catch (IOException e) {
-                Toast.makeText(activity, "Failed to save image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        }
+    /**
+     * Stages an image or video for DownloadService along with its content hash. The save
+     * path owns the SavedDownloadIndex: content that was already saved and is still
+     * present is not written again (DownloadQueue.Result.ALREADY_SAVED).
+     */
+    private void stageMedia(String fileName, byte[] fileData, String mimeType, long startedAtNanos)
+            throws IOException {
+        String contentHash = SavedDownloadIndex.computeHash(fileData);
+        String fullFileName = fileName + getFileExtensionFromMimeType(mimeType);
+        DownloadQueue.Entry entry = downloadQueue.stage(fileData, mimeType, fullFileName, true, contentHash);
+        DownloadService.enqueue(activity, entry, startedAtNanos);
     }
 
-    private void saveVideoToGallery(String fileName, byte[] videoData, String mimeType) {
-        String fileExtension = getFileExtensionFromMimeType(mimeType);
-        String fullFileName = fileName + fileExtension;
-
-        ContentValues values = new ContentValues();
-        values.put(MediaStore.Video.Media.DISPLAY_NAME, fullFileName);
-        values.put(MediaStore.Video.Media.MIME_TYPE, mimeType);
-        values.put(MediaStore.Video.Media.RELATIVE_PATH, "Movies/YourAppName");
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            Uri uri = activity.getContentResolver().insert(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, values);
-            try (OutputStream outputStream = activity.getContentResolver().openOutputStream(uri)) {
-                outputStream.write(videoData);
-                outputStream.flush();
-                Toast.makeText(activity, "Video saved to gallery", Toast.LENGTH_SHORT).show();
-            } catch (IOException e) {
-                Toast.makeText(activity, "Failed to save video: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        } else {
-            File videoFile = new File(activity.getExternalFilesDir(Environment.DIRECTORY_MOVIES), fullFileName);
-            try (FileOutputStream fos = new FileOutputStream(videoFile)) {
-                fos.write(videoData);
-                fos.flush();
-                Toast.makeText(activity, "Video saved successfully" + videoFile.getAbsolutePath(), Toast.LENGTH_SHORT).show();
-            } catch (IOException e) {
-                Toast.makeText(activity, "Failed to save image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        }
-    }
+    private void presentFilePickerAndSave(String mimeType, String suggestedFilename, byte[] fileData,
+                                          long startedAtNanos) throws IOException {
+        DownloadQueue.Entry entry = downloadQueue.stage(fileData, mimeType, suggestedFilename, false, null);
 
-    private void presentFilePickerAndSave(String mimeType, String suggestedFilename, File tempFile, byte[] base64Data) {
         Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
         intent.addCategory(Intent.CATEGORY_OPENABLE);
         intent.setType(mimeType);
         intent.putExtra(Intent.EXTRA_TITLE, suggestedFilename);
-        this.base64DecodedFileBytes = base64Data;
-        fileDownloadPickerLauncher.launch(intent);
+        activity.runOnUiThread(() -> {
+            if (activity.isFinishing()) {
+                // The room was closed while the payload was being staged
+                downloadQueue.discard(entry);
+                BridgeEvents.report(BridgeEvents.DOWNLOAD, startedAtNanos, false);
+                return;
+            }
+            // Several downloads may be waiting for a location; results arrive in launch order
+            pendingPickerFiles.addLast(new PendingPickerFile(entry, startedAtNanos));
+            fileDownloadPickerLauncher.launch(intent);
+        });
     }
 
     /**
-     * Called after user has picked a file save location. This method writes
-     * the prepared byte data to the selected Uri.
+     * Called after user has picked a file save location. The staged file is handed to
+     * DownloadService to be written to the selected Uri.
      */
     protected void handleFileDownloadPickerResult(int resultCode, Intent data) {
-        if (resultCode == RESULT_OK && data != null) {
-            Uri uri = data.getData();
-            if (uri != null) {
-                try {
-                    OutputStream outputStream = activity.getContentResolver().openOutputStream(uri);
-                    if (outputStream != null) {
-                        outputStream.write(base64DecodedFileBytes);
-                        outputStream.close();
-                        Toast.makeText(activity, "File saved successfully", Toast.LENGTH_SHORT).show();
-                    }
-                } catch (IOException e) {
-                    Toast.makeText(activity, "Failed to save file: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                }
+        PendingPickerFile pendingFile = pendingPickerFiles.pollFirst();
+        if (pendingFile == null) {
+            // The process was re-created while the picker was open; the staged file is still in the journal
+            DownloadQueue.Entry entry = downloadQueue.findOldestAwaitingLocation();
+            if (entry == null) return;
+            pendingFile = new PendingPickerFile(entry, System.nanoTime());
+        }
+
+        Uri uri = resultCode == RESULT_OK && data != null ? data.getData() : null;
+        if (uri == null) {
+            downloadQueue.discard(pendingFile.entry);
+            BridgeEvents.report(BridgeEvents.DOWNLOAD, pendingFile.startedAtNanos, false);
+            return;
+        }
+
+        // Keeps write access for DownloadService, even if this process dies before the save
+        if ((data.getFlags() & Intent.FLAG_GRANT_PERSISTABLE_URI_PERMISSION) != 0) {
+            try {
+                activity.getContentResolver().takePersistableUriPermission(uri,
+                        Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
+            } catch (SecurityException e) {
+                Log.w(TAG, "Could not persist access to " + uri, e);
             }
         }
+
+        try {
+            downloadQueue.setTarget(pendingFile.entry, uri);
+            DownloadService.enqueue(activity, pendingFile.entry, pendingFile.startedAtNanos);
+        } catch (IOException e) {
+            downloadQueue.discard(pendingFile.entry);
+            Toast.makeText(activity, "Failed to save file: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            BridgeEvents.report(BridgeEvents.DOWNLOAD, pendingFile.startedAtNanos, false);
+        }
     }
 
     // ─────────────────────────────────────────────
@@ -21,6 +21,8 @@ public class FileUploadHandler {
 
     private ValueCallback<Uri[]> filePathCallback;
     private final ActivityResultLauncher<Intent> fileChooserLauncher;
+    private int fileChooserTraceCookie;
+    private long fileChooserStartedAtNanos;
 
     /**
      * Constructs the FileUploadHandler with an ActivityResultLauncher used
@@ -44,16 +46,23 @@ public class FileUploadHandler {
         if (this.filePathCallback != null) {
             // Clean up any previous callbacks
             this.filePathCallback.onReceiveValue(null);
+            BridgeEvents.report(BridgeEvents.FILE_CHOOSER, fileChooserStartedAtNanos, false);
+            TraceRecorder.endAsyncSection("fileChooser", fileChooserTraceCookie);
+            FrameMonitor.endTagged(FrameMonitor.Tag.FILE_CHOOSER);
         }
+        fileChooserStartedAtNanos = System.nanoTime();
 
         this.filePathCallback = filePathCallback;
 
         if (fileChooserLauncher != null) {
+            fileChooserTraceCookie = TraceRecorder.beginAsyncSection("fileChooser");
+            FrameMonitor.beginTagged(FrameMonitor.Tag.FILE_CHOOSER);
             fileChooserLauncher.launch(intent);
             return true;
         }
 
         this.filePathCallback = null;
+        BridgeEvents.report(BridgeEvents.FILE_CHOOSER, fileChooserStartedAtNanos, false);
         return false;
     }
 
@@ -77,5 +86,22 @@ public class FileUploadHandler {
 
         filePathCallback.onReceiveValue(results);
         filePathCallback = null;
+        BridgeEvents.report(BridgeEvents.FILE_CHOOSER, fileChooserStartedAtNanos, results != null);
+        TraceRecorder.endAsyncSection("fileChooser", fileChooserTraceCookie);
+        FrameMonitor.endTagged(FrameMonitor.Tag.FILE_CHOOSER);
+    }
+
+    /**
+     * Cancels a chooser that is still open, releasing the WebView's callback. Should be
+     * called when the host is destroyed, as the result will never be delivered.
+     */
+    public void release() {
+        if (filePathCallback == null) return;
+
+        filePathCallback.onReceiveValue(null);
+        filePathCallback = null;
+        BridgeEvents.report(BridgeEvents.FILE_CHOOSER, fileChooserStartedAtNanos, false);
+        TraceRecorder.endAsyncSection("fileChooser", fileChooserTraceCookie);
+        FrameMonitor.endTagged(FrameMonitor.Tag.FILE_CHOOSER);
     }
 }
@@ -0,0 +1,284 @@
+package com.example.wherebywebviewdemo;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.RequiresApi;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * FrameMonitor measures how smoothly the call screen renders. It is attached to the
+ * window hosting the WebView and keeps, for one call:
+ * - a histogram of frame durations,
+ * - slow frames (that missed their deadline) and frozen frames (over 700 ms),
+ * - for janky frames, what the app itself was doing at the time (see Tag).
+ *
+ * Frame durations come from FrameMetrics: on API 31+, the total duration is compared
+ * with the frame's own deadline; on API 24-30, the UI and render thread work, including
+ * the delay before the UI thread got to the frame, is compared with the display's frame
+ * budget. Before API 24, a frame is slow when the interval
+ * between Choreographer frame callbacks spans more than one and a half vsyncs.
+ *
+ * Native work marks itself with beginTagged()/endTagged(), or markTagged() for instant
+ * events; a janky frame is tagged when it overlaps such work.
+ */
+public class FrameMonitor {
+
+    /**
+     * Native work that may cause jank.
+     */
+    public enum Tag {
+        DOWNLOAD, PERMISSION_DIALOG, FILE_CHOOSER, CONFIG_CHANGE
+    }
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    private static final String TAG = "FrameMonitor";
+
+    private static final long FROZEN_FRAME_NANOS = 700_000_000L;
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    // Upper bounds of the histogram buckets, in milliseconds; the last bucket is open-ended
+    private static final int[] BUCKET_UPPER_BOUNDS_MS = {8, 16, 25, 33, 50, 100, 250, 700};
+
+    // Tagged work in progress, and until when each tag applies (System.nanoTime() clock)
+    private static final AtomicIntegerArray activeTags = new AtomicIntegerArray(Tag.values().length);
+    private static final AtomicLongArray tagsEndedAtNanos = new AtomicLongArray(Tag.values().length);
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final Window window;
+    private final long slowFrameNanos;
+
+    private final long[] histogram = new long[BUCKET_UPPER_BOUNDS_MS.length + 1];
+    private final long[] jankyFramesByTag = new long[Tag.values().length];
+    private long totalFrames = 0;
+    private long slowFrames = 0;
+    private long frozenFrames = 0;
+    private long untaggedJankyFrames = 0;
+
+    private HandlerThread metricsThread;
+    private Object frameMetricsListener;
+    private Choreographer.FrameCallback frameCallback;
+    private long lastFrameTimeNanos = -1;
+
+    public FrameMonitor(Window window) {
+        this.window = window;
+        Display display = window.getWindowManager().getDefaultDisplay();
+        float refreshRate = display != null && display.getRefreshRate() > 0
+                ? display.getRefreshRate()
+                : DEFAULT_REFRESH_RATE;
+        this.slowFrameNanos = (long) (1_000_000_000L / refreshRate);
+    }
+
+    // ─────────────────────────────────────────────
+    // Tagging
+    // ─────────────────────────────────────────────
+
+    /**
+     * Marks the start of native work that may cause jank. Must be paired with endTagged().
+     */
+    public static void beginTagged(Tag tag) {
+        activeTags.incrementAndGet(tag.ordinal());
+    }
+
+    public static void endTagged(Tag tag) {
+        tagsEndedAtNanos.set(tag.ordinal(), nowNanos());
+        activeTags.decrementAndGet(tag.ordinal());
+    }
+
+    /**
+     * Marks an instant event whose effects last for a while (e.g., the relayout after a
+     * configuration change): frames within the given window are tagged.
+     */
+    public static void markTagged(Tag tag, long windowMs) {
+        tagsEndedAtNanos.set(tag.ordinal(), nowNanos() + windowMs * 1_000_000L);
+    }
+
+    // ─────────────────────────────────────────────
+    // Lifecycle
+    // ─────────────────────────────────────────────
+
+    public void start() {
+        if (frameMetricsListener != null || frameCallback != null) return;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            startFrameMetrics();
+        } else {
+            startChoreographer();
+        }
+    }
+
+    /**
+     * Stops monitoring and logs the session's summary.
+     */
+    public void stop() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && frameMetricsListener != null) {
+            try {
+                window.removeOnFrameMetricsAvailableListener(
+                        (Window.OnFrameMetricsAvailableListener) frameMetricsListener);
+            } catch (IllegalArgumentException ignored) {
+                // Already removed along with the window
+            }
+            frameMetricsListener = null;
+            metricsThread.quitSafely();
+            metricsThread = null;
+        }
+        if (frameCallback != null) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameCallback = null;
+        }
+
+        Log.i(TAG, "Call frames: " + getSummary());
+    }
+
+    // ─────────────────────────────────────────────
+    // Metrics
+    // ─────────────────────────────────────────────
+
+    public synchronized long getTotalFrames() {
+        return totalFrames;
+    }
+
+    public synchronized long getSlowFrames() {
+        return slowFrames;
+    }
+
+    public synchronized long getFrozenFrames() {
+        return frozenFrames;
+    }
+
+    public synchronized String getSummary() {
+        StringBuilder summary = new StringBuilder(String.format(Locale.US,
+                "frames=%d slow=%d (%.1f%%) frozen=%d histogram=[",
+                totalFrames, slowFrames, totalFrames > 0 ? slowFrames * 100.0 / totalFrames : 0, frozenFrames));
+        for (int i = 0; i < histogram.length; i++) {
+            if (i > 0) summary.append(' ');
+            summary.append(i < BUCKET_UPPER_BOUNDS_MS.length ? "<" + BUCKET_UPPER_BOUNDS_MS[i] : ">=700")
+                    .append("ms:").append(histogram[i]);
+        }
+        summary.append("] jankyBy=[");
+        for (Tag tag : Tag.values()) {
+            summary.append(tag).append(':').append(jankyFramesByTag[tag.ordinal()]).append(' ');
+        }
+        return summary.append("untagged:").append(untaggedJankyFrames).append(']').toString();
+    }
+
+    // ─────────────────────────────────────────────
+    // Frame sources
+    // ─────────────────────────────────────────────
+
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    private void startFrameMetrics() {
+        metricsThread = new HandlerThread("FrameMonitor");
+        metricsThread.start();
+
+        Window.OnFrameMetricsAvailableListener listener = (w, frameMetrics, dropCount) -> {
+            long totalNanos = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+            long startNanos = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                    ? frameMetrics.getMetric(FrameMetrics.INTENDED_VSYNC_TIMESTAMP)
+                    : nowNanos() - totalNanos;
+
+            // TOTAL_DURATION runs from the intended vsync to the buffer swap and routinely
+            // exceeds one vsync on pipelined devices without anything being dropped
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                recordFrame(totalNanos, frameMetrics.getMetric(FrameMetrics.DEADLINE), startNanos);
+            } else {
+                recordFrame(getWorkDurationNanos(frameMetrics), slowFrameNanos, startNanos);
+            }
+        };
+        window.addOnFrameMetricsAvailableListener(listener, new Handler(metricsThread.getLooper()));
+        frameMetricsListener = listener;
+    }
+
+    private void startChoreographer() {
+        frameCallback = new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                if (frameCallback != this) return;
+
+                if (lastFrameTimeNanos > 0) {
+                    // Intervals jitter around one vsync; a dropped frame makes them two
+                    recordFrame(frameTimeNanos - lastFrameTimeNanos, slowFrameNanos * 3 / 2, lastFrameTimeNanos);
+                }
+                lastFrameTimeNanos = frameTimeNanos;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        };
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    /**
+     * @param durationNanos How long the frame took.
+     * @param budgetNanos   Duration over which the frame missed its deadline.
+     * @param startNanos    When the frame started, on the System.nanoTime() clock.
+     */
+    private synchronized void recordFrame(long durationNanos, long budgetNanos, long startNanos) {
+        totalFrames++;
+
+        long durationMs = durationNanos / 1_000_000L;
+        int bucket = 0;
+        while (bucket < BUCKET_UPPER_BOUNDS_MS.length && durationMs >= BUCKET_UPPER_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        histogram[bucket]++;
+
+        if (durationNanos <= budgetNanos) return;
+
+        slowFrames++;
+        if (durationNanos >= FROZEN_FRAME_NANOS) {
+            frozenFrames++;
+        }
+
+        boolean tagged = false;
+        for (Tag tag : Tag.values()) {
+            int i = tag.ordinal();
+            if (activeTags.get(i) > 0 || tagsEndedAtNanos.get(i) >= startNanos) {
+                jankyFramesByTag[i]++;
+                tagged = true;
+            }
+        }
+        if (!tagged) {
+            untaggedJankyFrames++;
+        }
+    }
+
+    /**
+     * @return The time the UI thread and the render thread spent on the frame, including
+     * the unknown delay: a frame held up by other work on the UI thread (e.g., a long
+     * posted runnable) only shows there.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    private static long getWorkDurationNanos(FrameMetrics frameMetrics) {
+        return frameMetrics.getMetric(FrameMetrics.UNKNOWN_DELAY_DURATION)
+                + frameMetrics.getMetric(FrameMetrics.INPUT_HANDLING_DURATION)
+                + frameMetrics.getMetric(FrameMetrics.ANIMATION_DURATION)
+                + frameMetrics.getMetric(FrameMetrics.LAYOUT_MEASURE_DURATION)
+                + frameMetrics.getMetric(FrameMetrics.DRAW_DURATION)
+                + frameMetrics.getMetric(FrameMetrics.SYNC_DURATION)
+                + frameMetrics.getMetric(FrameMetrics.COMMAND_ISSUE_DURATION)
+                + frameMetrics.getMetric(FrameMetrics.SWAP_BUFFERS_DURATION);
+    }
+
+    private static long nowNanos() {
+        // Same clock as Choreographer frame times and FrameMetrics timestamps
+        return System.nanoTime();
+    }
+}
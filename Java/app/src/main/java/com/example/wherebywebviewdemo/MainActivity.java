@@ -1,11 +1,15 @@
 package com.example.wherebywebviewdemo;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.text.Editable;
+import android.util.Log;
 import android.util.Patterns;
 import android.view.View;
 import android.widget.Button;
@@ -13,6 +17,10 @@ import android.widget.Toast;
 
 import com.google.android.material.textfield.TextInputEditText;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 public class MainActivity extends AppCompatActivity {
@@ -21,6 +29,8 @@ public class MainActivity extends AppCompatActivity {
     // Constants
     // ─────────────────────────────────────────────
 
+    private static final String TAG = "MainActivity";
+
     private final String INITIAL_ROOM_URL_STRING = "https://yourWherebyRoomUrl";
     private final Map<String, String> INITIAL_ROOM_URL_PARAMS = Map.of(
             "needancestor", "",
@@ -35,6 +45,14 @@ public class MainActivity extends AppCompatActivity {
     private Button fragmentButton;
     private TextInputEditText textInput;
 
+    private SessionResumeStore sessionResumeStore;
+    private NetworkUrlPolicy networkUrlPolicy;
+
+    // Room launch waiting for the media permission pre-flight to complete
+    private ActivityResultLauncher<String[]> mediaPermissionsLauncher;
+    private @Nullable String pendingRoomUrl;
+    private boolean pendingRoomInFragment;
+
     // ─────────────────────────────────────────────
     // Lifecycle
     // ─────────────────────────────────────────────
@@ -52,6 +70,24 @@ public class MainActivity extends AppCompatActivity {
         activityButton = findViewById(R.id.activityButton);
         fragmentButton = findViewById(R.id.fragmentButton);
 
+        if (Constants.TRACE_RECORDING_ENABLED && !TraceRecorder.isRecording()) {
+            File traceFile = TraceRecorder.start(new File(getExternalFilesDir(null), "traces"));
+            Log.i(TAG, "Recording trace to " + traceFile);
+        }
+
+        mediaPermissionsLauncher = registerForActivityResult(
+                new ActivityResultContracts.RequestMultiplePermissions(),
+                this::onMediaPermissionsPreflightResult
+        );
+
+        // Keep WebView storage bounded on long-lived installs, while the device is charging
+        StorageMaintenanceJobService.schedule(this);
+        // Finish downloads a killed process left staged
+        DownloadService.resumeIfPending(this);
+
+        sessionResumeStore = new SessionResumeStore(this);
+        networkUrlPolicy = new NetworkUrlPolicy(new ConnectivityNetworkStateSource(this));
+
         String fullUrl = UrlUtils.buildUrlWithParams(INITIAL_ROOM_URL_STRING, INITIAL_ROOM_URL_PARAMS);
         textInput.setText(fullUrl);
 
@@ -60,7 +96,7 @@ public class MainActivity extends AppCompatActivity {
             public void onClick(View v) {
                 String url = getValidatedRoomUrl();
                 if (url != null) {
-                    launchWebViewActivity(url);
+                    startJoin(url, false);
                 }
             }
         });
@@ -70,24 +106,109 @@ public class MainActivity extends AppCompatActivity {
             public void onClick(View v) {
                 String url = getValidatedRoomUrl();
                 if (url != null) {
-                    loadWebViewFragment(url);
+                    startJoin(url, true);
                 }
             }
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (isFinishing()) {
+            TraceRecorder.stop();
+        }
+    }
+
     // ─────────────────────────────────────────────
     // Navigation
     // ─────────────────────────────────────────────
 
-    private void launchWebViewActivity(String roomUrlString) {
-        Intent intent = new Intent(this, WebViewActivity.class);
-        intent.putExtra(Constants.ROOM_URL_KEY, roomUrlString);
+    /**
+     * Starts joining a room. When the media permission pre-flight is enabled and camera or
+     * microphone are not granted yet, they are requested first and the room is launched
+     * once the user has answered.
+     */
+    private void startJoin(String roomUrlString, boolean inFragment) {
+        String[] missingPermissions = Constants.MEDIA_PERMISSION_PREFLIGHT_ENABLED
+                ? PermissionsManager.getMissingMediaPermissions(this)
+                : new String[0];
+
+        if (missingPermissions.length == 0) {
+            joinRoom(roomUrlString, inFragment, null);
+            return;
+        }
+
+        pendingRoomUrl = roomUrlString;
+        pendingRoomInFragment = inFragment;
+        mediaPermissionsLauncher.launch(missingPermissions);
+    }
+
+    private void onMediaPermissionsPreflightResult(Map<String, Boolean> results) {
+        String roomUrlString = pendingRoomUrl;
+        pendingRoomUrl = null;
+        if (roomUrlString == null) return;
+
+        List<String> denied = new ArrayList<>();
+        for (Map.Entry<String, Boolean> result : results.entrySet()) {
+            if (!Boolean.TRUE.equals(result.getValue())) {
+                denied.add(result.getKey());
+            }
+        }
+
+        joinRoom(roomUrlString, pendingRoomInFragment, denied.toArray(new String[0]));
+    }
+
+    private void joinRoom(String roomUrlString, boolean inFragment, @Nullable String[] deniedPermissions) {
+        long joinStartedAtMs = SystemClock.elapsedRealtime();
+        boolean warmJoin = sessionResumeStore.canResume(roomUrlString);
+        String launchUrl = prepareJoin(roomUrlString, warmJoin);
+
+        Bundle launchArgs = new Bundle();
+        launchArgs.putString(Constants.ROOM_URL_KEY, launchUrl);
+        launchArgs.putBoolean(Constants.WARM_JOIN_KEY, warmJoin);
+        launchArgs.putLong(Constants.JOIN_STARTED_AT_KEY, joinStartedAtMs);
+        launchArgs.putStringArray(Constants.PREFLIGHT_DENIED_PERMISSIONS_KEY, deniedPermissions);
+
+        if (inFragment) {
+            loadWebViewFragment(launchArgs);
+        } else {
+            launchWebViewActivity(launchArgs);
+        }
+    }
+
+    private void launchWebViewActivity(Bundle launchArgs) {
+        Intent intent;
+        if (Constants.CALL_PROCESS_ENABLED) {
+            intent = new Intent(this, CallProcessWebViewActivity.class);
+            launchArgs.putParcelable(Constants.CALL_RESULT_RECEIVER_KEY,
+                    CallProcessChannel.createReceiver(this::onCallEnded));
+        } else {
+            intent = new Intent(this, WebViewActivity.class);
+        }
+        intent.putExtras(launchArgs);
         startActivity(intent);
     }
 
-    private void loadWebViewFragment(String roomUrlString) {
-        WebViewFragment fragment = WebViewFragment.newInstance(roomUrlString);
+    /**
+     * Results of a room hosted in the call process. Its session state replaces ours, since
+     * SharedPreferences written there are not visible to this process's cached copy.
+     */
+    private void onCallEnded(String reason, Bundle sessionState, Bundle metrics) {
+        sessionResumeStore.importState(sessionState);
+
+        StringBuilder summary = new StringBuilder();
+        for (String key : metrics.keySet()) {
+            Object value = metrics.get(key);
+            summary.append(key).append('=')
+                    .append(value instanceof long[] ? Arrays.toString((long[]) value) : value)
+                    .append(' ');
+        }
+        Log.i(TAG, "Call ended (" + reason + "): " + summary.toString().trim());
+    }
+
+    private void loadWebViewFragment(Bundle launchArgs) {
+        WebViewFragment fragment = WebViewFragment.newInstance(launchArgs);
 
         getSupportFragmentManager()
                 .beginTransaction()
@@ -101,6 +222,20 @@ public class MainActivity extends AppCompatActivity {
     // Helpers
     // ─────────────────────────────────────────────
 
+    /**
+     * Records the room being joined and builds the URL to launch: parameters matching the
+     * current network come first, then, when the room was left recently, the previous
+     * choices that let it be re-entered without the full pre-join flow.
+     */
+    private String prepareJoin(String roomUrlString, boolean warmJoin) {
+        String launchUrl = networkUrlPolicy.applyTo(roomUrlString);
+        if (warmJoin) {
+            launchUrl = sessionResumeStore.buildResumeUrl(launchUrl);
+        }
+        sessionResumeStore.rememberRoom(roomUrlString);
+        return launchUrl;
+    }
+
     private @Nullable String getValidatedRoomUrl() {
         Editable editable = textInput.getText();
         String url = (editable != null) ? editable.toString().trim() : "";
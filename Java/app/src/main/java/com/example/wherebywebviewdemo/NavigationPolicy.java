@@ -0,0 +1,373 @@
+package com.example.wherebywebviewdemo;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * NavigationPolicy decides what happens to a navigation the room page starts:
+ * - LOAD: let the WebView load it in place (e.g., Whereby redirects),
+ * - EXTERNAL: hand it to another app (e.g., help pages, mailto:, tel:), so the user
+ *   does not leave the meeting,
+ * - BLOCK: drop it.
+ *
+ * Rules match a scheme, a host suffix on label boundaries ("whereby.com" matches
+ * "whereby.com" and "app.whereby.com", not "notwhereby.com"), or both. The most specific
+ * rule wins: the longest matching host suffix, then a scheme-specific rule over an
+ * any-scheme one, then the rule declared first. Unmatched navigations get the default.
+ *
+ * Rules are compiled once into a scheme table, each entry holding a trie of host labels
+ * from the top-level domain down, so deciding a navigation scans the URL in place
+ * without regexes or allocation. Hits are counted per rule.
+ */
+public final class NavigationPolicy {
+
+    public enum Action {
+        LOAD, EXTERNAL, BLOCK
+    }
+
+    // ─────────────────────────────────────────────
+    // Compiled form
+    // ─────────────────────────────────────────────
+
+    /**
+     * One host label in the trie, e.g. "whereby" under "com".
+     */
+    private static final class HostNode {
+        String[] labels = new String[0];
+        HostNode[] children = new HostNode[0];
+        // Index of the rule ending at this node, or -1
+        int ruleIndex = -1;
+
+        HostNode childFor(String label, boolean create) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i].equals(label)) return children[i];
+            }
+            if (!create) return null;
+
+            String[] newLabels = new String[labels.length + 1];
+            HostNode[] newChildren = new HostNode[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, labels.length);
+            System.arraycopy(children, 0, newChildren, 0, children.length);
+            newLabels[labels.length] = label;
+            newChildren[children.length] = new HostNode();
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[children.length - 1];
+        }
+    }
+
+    // Rules are stored in declaration order
+    private final String[] ruleNames;
+    private final Action[] ruleActions;
+    private final AtomicLongArray ruleHits;
+
+    // Scheme table: schemes[i] has its own host trie; the root's rule matches any host
+    private final String[] schemes;
+    private final HostNode[] schemeTries;
+    // Rules without a scheme
+    private final HostNode anySchemeTrie;
+
+    private final Action defaultAction;
+    private final AtomicLongArray defaultHits = new AtomicLongArray(1);
+
+    private NavigationPolicy(Builder builder) {
+        int ruleCount = builder.rules.size();
+        ruleNames = new String[ruleCount];
+        ruleActions = new Action[ruleCount];
+        ruleHits = new AtomicLongArray(ruleCount);
+
+        List<String> schemeList = new ArrayList<>();
+        List<HostNode> trieList = new ArrayList<>();
+        anySchemeTrie = new HostNode();
+
+        for (int i = 0; i < ruleCount; i++) {
+            Rule rule = builder.rules.get(i);
+            ruleNames[i] = rule.name;
+            ruleActions[i] = rule.action;
+
+            HostNode node;
+            if (rule.scheme == null) {
+                node = anySchemeTrie;
+            } else {
+                int schemeIndex = schemeList.indexOf(rule.scheme);
+                if (schemeIndex < 0) {
+                    schemeList.add(rule.scheme);
+                    trieList.add(new HostNode());
+                    schemeIndex = schemeList.size() - 1;
+                }
+                node = trieList.get(schemeIndex);
+            }
+
+            if (rule.hostSuffix != null) {
+                String[] labels = rule.hostSuffix.split("\\.");
+                for (int j = labels.length - 1; j >= 0; j--) {
+                    node = node.childFor(labels[j], true);
+                }
+            }
+            // The first rule declared for a scheme and suffix wins
+            if (node.ruleIndex < 0) {
+                node.ruleIndex = i;
+            }
+        }
+
+        schemes = schemeList.toArray(new String[0]);
+        schemeTries = trieList.toArray(new HostNode[0]);
+        defaultAction = builder.defaultAction;
+    }
+
+    // ─────────────────────────────────────────────
+    // Presets
+    // ─────────────────────────────────────────────
+
+    /**
+     * Rules for a Whereby room: Whereby and the room's own host load in place, other web
+     * pages and mail/phone links open in other apps, and everything else is blocked.
+     *
+     * @param roomUrl The room URL, whose host is allowed in case of a custom domain, over
+     *                the room URL's own scheme only.
+     */
+    public static NavigationPolicy forRoom(@Nullable String roomUrl) {
+        Builder builder = new Builder()
+                .load("whereby", "https", "whereby.com");
+
+        String roomHost = roomUrl != null ? extractHost(roomUrl) : null;
+        if (roomHost != null && !roomHost.isEmpty()) {
+            // Not any scheme, which would let intent://, file:// or content:// URLs on the
+            // room host past the rules below; a stand-in room served over plain HTTP gets http
+            builder.load("room host", extractScheme(roomUrl), roomHost);
+        }
+
+        return builder
+                .external("mail", "mailto", null)
+                .external("phone", "tel", null)
+                .external("sms", "sms", null)
+                .external("other web pages", "https", null)
+                .block("insecure web pages", "http", null)
+                .block("scripts", "javascript", null)
+                .block("local files", "file", null)
+                .block("content", "content", null)
+                .block("intents", "intent", null)
+                .setDefaultAction(Action.BLOCK)
+                .build();
+    }
+
+    // ─────────────────────────────────────────────
+    // Decision
+    // ─────────────────────────────────────────────
+
+    /**
+     * Decides a navigation and counts the hit. Does not allocate.
+     *
+     * @param url The URL being navigated to.
+     */
+    public Action decide(String url) {
+        int ruleIndex = match(url);
+        if (ruleIndex < 0) {
+            defaultHits.incrementAndGet(0);
+            return defaultAction;
+        }
+        ruleHits.incrementAndGet(ruleIndex);
+        return ruleActions[ruleIndex];
+    }
+
+    /**
+     * @return The index of the matching rule, or -1.
+     */
+    int match(String url) {
+        int schemeEnd = url.indexOf(':');
+        if (schemeEnd <= 0) return -1;
+
+        int hostStart = -1;
+        int hostEnd = -1;
+        if (url.startsWith("//", schemeEnd + 1)) {
+            int authorityStart = schemeEnd + 3;
+            int authorityEnd = authorityStart;
+            while (authorityEnd < url.length()) {
+                char c = url.charAt(authorityEnd);
+                if (c == '/' || c == '?' || c == '#') break;
+                authorityEnd++;
+            }
+
+            hostStart = authorityStart;
+            for (int i = authorityEnd - 1; i >= authorityStart; i--) {
+                if (url.charAt(i) == '@') {
+                    hostStart = i + 1;
+                    break;
+                }
+            }
+            hostEnd = hostStart;
+            while (hostEnd < authorityEnd && url.charAt(hostEnd) != ':') {
+                hostEnd++;
+            }
+            // Trailing dot of a fully qualified name
+            if (hostEnd > hostStart && url.charAt(hostEnd - 1) == '.') {
+                hostEnd--;
+            }
+        }
+
+        HostNode schemeTrie = null;
+        for (int i = 0; i < schemes.length; i++) {
+            String scheme = schemes[i];
+            if (scheme.length() == schemeEnd && url.regionMatches(true, 0, scheme, 0, schemeEnd)) {
+                schemeTrie = schemeTries[i];
+                break;
+            }
+        }
+
+        long schemeMatch = schemeTrie != null ? matchHost(schemeTrie, url, hostStart, hostEnd) : -1;
+        long anySchemeMatch = matchHost(anySchemeTrie, url, hostStart, hostEnd);
+
+        // Deeper host match wins; on a tie, the scheme-specific rule
+        if (schemeMatch < 0) return anySchemeMatch < 0 ? -1 : (int) anySchemeMatch;
+        if (anySchemeMatch >= 0 && (anySchemeMatch >>> 32) > (schemeMatch >>> 32)) {
+            return (int) anySchemeMatch;
+        }
+        return (int) schemeMatch;
+    }
+
+    /**
+     * Walks the host's labels from the last one down the trie.
+     *
+     * @return (depth << 32 | ruleIndex) for the deepest node holding a rule, or -1.
+     */
+    private static long matchHost(HostNode root, String url, int hostStart, int hostEnd) {
+        long best = root.ruleIndex >= 0 ? root.ruleIndex : -1;
+        if (hostStart < 0 || hostEnd <= hostStart) return best;
+
+        HostNode node = root;
+        int depth = 0;
+        int labelEnd = hostEnd;
+        while (labelEnd > hostStart) {
+            int labelStart = url.lastIndexOf('.', labelEnd - 1) + 1;
+            if (labelStart < hostStart) labelStart = hostStart;
+
+            HostNode next = null;
+            int labelLength = labelEnd - labelStart;
+            for (int i = 0; i < node.labels.length; i++) {
+                String label = node.labels[i];
+                if (label.length() == labelLength && url.regionMatches(true, labelStart, label, 0, labelLength)) {
+                    next = node.children[i];
+                    break;
+                }
+            }
+            if (next == null) break;
+
+            node = next;
+            depth++;
+            if (node.ruleIndex >= 0) {
+                best = ((long) depth << 32) | node.ruleIndex;
+            }
+            labelEnd = labelStart - 1;
+        }
+        return best;
+    }
+
+    // ─────────────────────────────────────────────
+    // Metrics
+    // ─────────────────────────────────────────────
+
+    /**
+     * @return Hits per rule name in declaration order, plus "default" for unmatched navigations.
+     */
+    public Map<String, Long> getHitCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < ruleNames.length; i++) {
+            counts.put(ruleNames[i], ruleHits.get(i));
+        }
+        counts.put("default", defaultHits.get(0));
+        return counts;
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    private static String extractScheme(String url) {
+        return url.substring(0, url.indexOf("://")).toLowerCase(Locale.US);
+    }
+
+    private static @Nullable String extractHost(String url) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd < 0) return null;
+
+        int start = schemeEnd + 3;
+        int end = start;
+        while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        String authority = url.substring(start, end);
+        authority = authority.substring(authority.lastIndexOf('@') + 1);
+        int portStart = authority.indexOf(':');
+        return (portStart >= 0 ? authority.substring(0, portStart) : authority).toLowerCase(Locale.US);
+    }
+
+    // ─────────────────────────────────────────────
+    // Builder
+    // ─────────────────────────────────────────────
+
+    private static final class Rule {
+        final String name;
+        final Action action;
+        final @Nullable String scheme;
+        final @Nullable String hostSuffix;
+
+        Rule(String name, Action action, @Nullable String scheme, @Nullable String hostSuffix) {
+            this.name = name;
+            this.action = action;
+            this.scheme = scheme;
+            this.hostSuffix = hostSuffix;
+        }
+    }
+
+    public static final class Builder {
+        private final List<Rule> rules = new ArrayList<>();
+        private Action defaultAction = Action.BLOCK;
+
+        /**
+         * Adds a rule.
+         *
+         * @param name       Name under which hits are counted.
+         * @param scheme     Scheme to match (e.g., "https"), or null for any scheme.
+         * @param hostSuffix Host suffix to match (e.g., "whereby.com"), or null for any host.
+         */
+        public Builder addRule(String name, Action action, @Nullable String scheme, @Nullable String hostSuffix) {
+            if (scheme == null && hostSuffix == null) {
+                throw new IllegalArgumentException("Rule '" + name + "' matches everything; use setDefaultAction()");
+            }
+            rules.add(new Rule(
+                    name,
+                    action,
+                    scheme != null ? scheme.toLowerCase(Locale.US) : null,
+                    hostSuffix != null ? hostSuffix.toLowerCase(Locale.US) : null
+            ));
+            return this;
+        }
+
+        public Builder load(String name, @Nullable String scheme, @Nullable String hostSuffix) {
+            return addRule(name, Action.LOAD, scheme, hostSuffix);
+        }
+
+        public Builder external(String name, @Nullable String scheme, @Nullable String hostSuffix) {
+            return addRule(name, Action.EXTERNAL, scheme, hostSuffix);
+        }
+
+        public Builder block(String name, @Nullable String scheme, @Nullable String hostSuffix) {
+            return addRule(name, Action.BLOCK, scheme, hostSuffix);
+        }
+
+        public Builder setDefaultAction(Action defaultAction) {
+            this.defaultAction = defaultAction;
+            return this;
+        }
+
+        public NavigationPolicy build() {
+            return new NavigationPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.wherebywebviewdemo;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Immutable snapshot of the network the device is currently using, as seen by
+ * NetworkUrlPolicy. Deliberately free of Android types so policies can be unit-tested.
+ */
+public final class NetworkState {
+
+    public static final int TRANSPORT_NONE = 0;
+    public static final int TRANSPORT_WIFI = 1;
+    public static final int TRANSPORT_CELLULAR = 2;
+    public static final int TRANSPORT_ETHERNET = 3;
+    public static final int TRANSPORT_OTHER = 4;
+
+    // Used when the platform provides no bandwidth estimate
+    public static final int UNKNOWN_BANDWIDTH = -1;
+
+    private final int transport;
+    private final boolean metered;
+    private final int downstreamBandwidthKbps;
+
+    /**
+     * @param transport               One of the TRANSPORT_* constants.
+     * @param metered                 Whether the user may be charged for data on this network.
+     * @param downstreamBandwidthKbps Estimated downstream bandwidth, or UNKNOWN_BANDWIDTH.
+     */
+    public NetworkState(int transport, boolean metered, int downstreamBandwidthKbps) {
+        this.transport = transport;
+        this.metered = metered;
+        this.downstreamBandwidthKbps = downstreamBandwidthKbps;
+    }
+
+    public int getTransport() {
+        return transport;
+    }
+
+    public boolean isMetered() {
+        return metered;
+    }
+
+    public int getDownstreamBandwidthKbps() {
+        return downstreamBandwidthKbps;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "NetworkState{transport=" + transport + ", metered=" + metered
+                + ", downstreamKbps=" + downstreamBandwidthKbps + "}";
+    }
+}
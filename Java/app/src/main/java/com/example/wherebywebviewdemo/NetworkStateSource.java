@@ -0,0 +1,21 @@
+package com.example.wherebywebviewdemo;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Provides the current network state to NetworkUrlPolicy and notifies it of changes.
+ * Production code uses ConnectivityNetworkStateSource; tests can supply their own.
+ */
+public interface NetworkStateSource {
+
+    interface Listener {
+        void onNetworkStateChanged(NetworkState state);
+    }
+
+    NetworkState getCurrentState();
+
+    /**
+     * Starts delivering changes to the given listener, or stops when it is null.
+     */
+    void setListener(@Nullable Listener listener);
+}
@@ -0,0 +1,135 @@
+package com.example.wherebywebviewdemo;
+
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * NetworkUrlPolicy picks room URL parameters that match the current network, so a call on
+ * a metered or slow link starts in a lighter mode instead of degrading after joining:
+ * - FULL: no extra parameters,
+ * - LOW_BANDWIDTH: lowData, for metered, cellular or slow links,
+ * - AUDIO_FIRST: lowData and video=off, for very slow links.
+ *
+ * The network state comes from an injectable NetworkStateSource. While started, the policy
+ * re-evaluates on every network change and reports when the mode changes.
+ */
+public class NetworkUrlPolicy {
+
+    public enum Mode {
+        FULL,
+        LOW_BANDWIDTH,
+        AUDIO_FIRST
+    }
+
+    public interface Listener {
+        void onModeChanged(Mode mode, NetworkState state);
+    }
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    // Below this estimate video is not worth attempting
+    static final int AUDIO_FIRST_MAX_KBPS = 300;
+    // Below this estimate video is sent and received at reduced quality
+    static final int LOW_BANDWIDTH_MAX_KBPS = 1500;
+
+    // Whereby room URL parameters
+    private static final String PARAM_LOW_DATA = "lowData";
+    private static final String PARAM_VIDEO = "video";
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final NetworkStateSource networkStateSource;
+    private @Nullable Mode currentMode;
+
+    public NetworkUrlPolicy(NetworkStateSource networkStateSource) {
+        this.networkStateSource = networkStateSource;
+    }
+
+    // ─────────────────────────────────────────────
+    // Public API
+    // ─────────────────────────────────────────────
+
+    /**
+     * @return The mode matching the network the device is using right now.
+     */
+    public Mode getMode() {
+        return modeFor(networkStateSource.getCurrentState());
+    }
+
+    /**
+     * Adds the parameters of the current mode to the room URL. Parameters already present
+     * in the URL are kept as they are.
+     */
+    public String applyTo(String roomUrl) {
+        return applyTo(roomUrl, getMode());
+    }
+
+    /**
+     * Adds the parameters of the given mode to the room URL. Parameters already present
+     * in the URL are kept as they are.
+     */
+    public static String applyTo(String roomUrl, Mode mode) {
+        return UrlUtils.appendParams(roomUrl, paramsFor(mode));
+    }
+
+    /**
+     * Starts watching the network, calling the listener whenever the mode changes.
+     */
+    public void start(Listener listener) {
+        currentMode = getMode();
+        networkStateSource.setListener(state -> {
+            Mode mode = modeFor(state);
+            if (mode != currentMode) {
+                currentMode = mode;
+                listener.onModeChanged(mode, state);
+            }
+        });
+    }
+
+    public void stop() {
+        networkStateSource.setListener(null);
+    }
+
+    // ─────────────────────────────────────────────
+    // Rules
+    // ─────────────────────────────────────────────
+
+    static Mode modeFor(NetworkState state) {
+        int bandwidthKbps = state.getDownstreamBandwidthKbps();
+        boolean bandwidthKnown = bandwidthKbps != NetworkState.UNKNOWN_BANDWIDTH;
+
+        if (bandwidthKnown && bandwidthKbps < AUDIO_FIRST_MAX_KBPS) {
+            return Mode.AUDIO_FIRST;
+        }
+        if (state.isMetered()
+                || state.getTransport() == NetworkState.TRANSPORT_CELLULAR
+                || (bandwidthKnown && bandwidthKbps < LOW_BANDWIDTH_MAX_KBPS)) {
+            return Mode.LOW_BANDWIDTH;
+        }
+        return Mode.FULL;
+    }
+
+    static Map<String, String> paramsFor(Mode mode) {
+        Map<String, String> params = new LinkedHashMap<>();
+        switch (mode) {
+            case AUDIO_FIRST:
+                params.put(PARAM_LOW_DATA, "");
+                params.put(PARAM_VIDEO, "off");
+                break;
+            case LOW_BANDWIDTH:
+                params.put(PARAM_LOW_DATA, "");
+                break;
+            case FULL:
+            default:
+                return Collections.emptyMap();
+        }
+        return params;
+    }
+}
@@ -26,9 +26,12 @@ public class PermissionsManager {
 
     private static final int WEBVIEW_PERMISSION_REQUEST_CODE = 5678;
 
-    private final @Nullable Activity activity;
-    private final @Nullable Fragment fragment;
+    // Cleared by release(), so a request arriving late cannot reach a destroyed host
+    private @Nullable Activity activity;
+    private @Nullable Fragment fragment;
     private PermissionRequest pendingWebViewRequest;
+    private int pendingRequestTraceCookie;
+    private long pendingRequestStartedAtNanos;
 
     // Session-scope flags to avoid repeatedly prompting after denial
     private boolean hasDeniedCameraPermission = false;
@@ -44,6 +47,50 @@ public class PermissionsManager {
         this.fragment = fragment;
     }
 
+    // ─────────────────────────────────────────────
+    // Pre-flight
+    // ─────────────────────────────────────────────
+
+    /**
+     * Lists the media permissions a room needs that have not been granted yet, so they
+     * can be requested before the room is launched rather than in the middle of joining.
+     *
+     * @param context Any context.
+     * @return CAMERA and/or RECORD_AUDIO, or an empty array if both are granted.
+     */
+    public static String[] getMissingMediaPermissions(Context context) {
+        List<String> missing = new ArrayList<>();
+        for (String permission : new String[]{Manifest.permission.CAMERA, Manifest.permission.RECORD_AUDIO}) {
+            if (ContextCompat.checkSelfPermission(context, permission) != PackageManager.PERMISSION_GRANTED) {
+                missing.add(permission);
+            }
+        }
+        return missing.toArray(new String[0]);
+    }
+
+    /**
+     * Carries over the denials from a pre-flight request made before the room was launched,
+     * so the page's request for a denied resource is refused without prompting again.
+     * Granted permissions need no hand-over: they are found granted when the page asks.
+     *
+     * @param deniedPermissions Permissions the user denied during the pre-flight, or null.
+     */
+    public void applyPreflightDenials(@Nullable String[] deniedPermissions) {
+        if (deniedPermissions == null) return;
+
+        for (String permission : deniedPermissions) {
+            if (Manifest.permission.CAMERA.equals(permission)) {
+                hasDeniedCameraPermission = true;
+            } else if (Manifest.permission.RECORD_AUDIO.equals(permission)) {
+                hasDeniedMicrophonePermission = true;
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // WebView requests
+    // ─────────────────────────────────────────────
+
     /**
      * Handles a WebView PermissionRequest by checking whether the requested
      * resources (camera/mic) are allowed, denied, or need to be requested.
@@ -56,6 +103,14 @@ public class PermissionsManager {
      */
     @RequiresApi(api = Build.VERSION_CODES.M)
     public void checkAndRequestPermissionsForWebViewRequest(PermissionRequest request) {
+        long startedAtNanos = System.nanoTime();
+        if (activity == null && fragment == null) {
+            // Released: the host is gone and nobody can answer a dialog
+            request.deny();
+            BridgeEvents.report(BridgeEvents.PERMISSION, startedAtNanos, false);
+            return;
+        }
+
         boolean cameraNeeded = false;
         boolean micNeeded = false;
 
@@ -72,13 +127,18 @@ public class PermissionsManager {
 
         if ((cameraNeeded && hasDeniedCameraPermission) || (micNeeded && hasDeniedMicrophonePermission)) {
             request.deny();
+            BridgeEvents.report(BridgeEvents.PERMISSION, startedAtNanos, false);
             return;
         }
 
         if (hasCamera && hasMic) {
             request.grant(request.getResources());
+            BridgeEvents.report(BridgeEvents.PERMISSION, startedAtNanos, true);
         } else {
             pendingWebViewRequest = request;
+            pendingRequestStartedAtNanos = startedAtNanos;
+            pendingRequestTraceCookie = TraceRecorder.beginAsyncSection("webViewPermissionDialog");
+            FrameMonitor.beginTagged(FrameMonitor.Tag.PERMISSION_DIALOG);
             List<String> permissionsToRequestList = new ArrayList<>();
             if (cameraNeeded && !hasCamera) permissionsToRequestList.add(Manifest.permission.CAMERA);
             if (micNeeded && !hasMic) permissionsToRequestList.add(Manifest.permission.RECORD_AUDIO);
@@ -127,9 +187,28 @@ public class PermissionsManager {
             pendingWebViewRequest.deny();
         }
 
+        TraceRecorder.endAsyncSection("webViewPermissionDialog", pendingRequestTraceCookie);
+        FrameMonitor.endTagged(FrameMonitor.Tag.PERMISSION_DIALOG);
+        BridgeEvents.report(BridgeEvents.PERMISSION, pendingRequestStartedAtNanos, allGranted);
         pendingWebViewRequest = null;
     }
 
+    /**
+     * Denies a request still waiting for the permission dialog and drops the references
+     * to the host. Should be called when the Activity or Fragment is destroyed.
+     */
+    public void release() {
+        if (pendingWebViewRequest != null) {
+            pendingWebViewRequest.deny();
+            TraceRecorder.endAsyncSection("webViewPermissionDialog", pendingRequestTraceCookie);
+            FrameMonitor.endTagged(FrameMonitor.Tag.PERMISSION_DIALOG);
+            BridgeEvents.report(BridgeEvents.PERMISSION, pendingRequestStartedAtNanos, false);
+            pendingWebViewRequest = null;
+        }
+        activity = null;
+        fragment = null;
+    }
+
     /**
      * Utility method to check if a given permission is already granted.
      *
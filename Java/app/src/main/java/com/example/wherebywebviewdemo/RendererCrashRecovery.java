@@ -0,0 +1,210 @@
+package com.example.wherebywebviewdemo;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.ViewGroup;
+import android.webkit.RenderProcessGoneDetail;
+import android.webkit.WebView;
+
+import androidx.annotation.RequiresApi;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RendererCrashRecovery brings a call back after the WebView renderer process has died
+ * (e.g., OOM-killed mid-call). The dead WebView is detached and destroyed, a replacement
+ * is handed to the host to be configured through the same path as the original, and the
+ * room URL is reloaded with its original parameters.
+ *
+ * Repeated crashes within a short window are delayed with an exponential backoff, and
+ * recovery is abandoned once the crash budget is exhausted to avoid a crash loop.
+ */
+public class RendererCrashRecovery {
+
+    /**
+     * Implemented by the Activity or Fragment that owns the WebView.
+     */
+    public interface Host {
+
+        /**
+         * Called with a freshly created WebView that already sits where the dead one was
+         * in the view hierarchy. The host must keep a reference to it and configure it.
+         *
+         * @param newWebView The replacement WebView.
+         */
+        void onWebViewReplaced(WebView newWebView);
+
+        /**
+         * Called when the renderer crashed too often and recovery has been given up.
+         * The dead WebView has already been destroyed.
+         */
+        void onRecoveryAbandoned();
+    }
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    private static final String TAG = "RendererCrashRecovery";
+
+    private static final long CRASH_WINDOW_MS = 60_000;
+    private static final int MAX_CRASHES_IN_WINDOW = 4;
+    private static final long BASE_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 8_000;
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private String roomUrlString;
+    private final Host host;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final ArrayDeque<Long> recentCrashTimesMs = new ArrayDeque<>();
+    private final List<Long> recoveryDurationsMs = new ArrayList<>();
+    private long recoveryStartedAtMs = -1;
+    private Runnable pendingReload;
+    private boolean released = false;
+
+    /**
+     * @param roomUrlString The room URL, including its parameters, to reload after a crash.
+     * @param host          The owner of the WebView that will receive the replacement.
+     */
+    public RendererCrashRecovery(String roomUrlString, Host host) {
+        this.roomUrlString = roomUrlString;
+        this.host = host;
+    }
+
+    /**
+     * Updates the URL reloaded after a crash, e.g. when room parameters change mid-call.
+     */
+    public void setRoomUrl(String roomUrlString) {
+        this.roomUrlString = roomUrlString;
+    }
+
+    // ─────────────────────────────────────────────
+    // WebViewClient callbacks
+    // ─────────────────────────────────────────────
+
+    /**
+     * Should be called from WebViewClient.onRenderProcessGone(). Replaces the dead WebView
+     * and schedules the room reload.
+     *
+     * @param deadWebView The WebView whose renderer has gone away.
+     * @param detail      Information about why the renderer went away.
+     * @return always true, so the system does not kill the app process.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public boolean onRenderProcessGone(WebView deadWebView, RenderProcessGoneDetail detail) {
+        long now = SystemClock.elapsedRealtime();
+        Log.w(TAG, "Renderer gone (crashed=" + detail.didCrash()
+                + ", priorityAtExit=" + detail.rendererPriorityAtExit() + ")");
+
+        ViewGroup parent = (ViewGroup) deadWebView.getParent();
+        int index = parent != null ? parent.indexOfChild(deadWebView) : -1;
+        ViewGroup.LayoutParams layoutParams = deadWebView.getLayoutParams();
+
+        // The dead WebView can no longer be used and must be destroyed.
+        if (parent != null) {
+            parent.removeView(deadWebView);
+        }
+        deadWebView.destroy();
+
+        if (released) {
+            return true;
+        }
+
+        while (!recentCrashTimesMs.isEmpty() && now - recentCrashTimesMs.peekFirst() > CRASH_WINDOW_MS) {
+            recentCrashTimesMs.pollFirst();
+        }
+        recentCrashTimesMs.addLast(now);
+
+        if (parent == null || recentCrashTimesMs.size() > MAX_CRASHES_IN_WINDOW) {
+            Log.e(TAG, "Abandoning recovery after " + recentCrashTimesMs.size() + " crashes");
+            cancelPendingReload();
+            recoveryStartedAtMs = -1;
+            host.onRecoveryAbandoned();
+            return true;
+        }
+
+        if (recoveryStartedAtMs < 0) {
+            recoveryStartedAtMs = now;
+        }
+
+        WebView replacement = new WebView(deadWebView.getContext());
+        replacement.setId(deadWebView.getId());
+        parent.addView(replacement, index, layoutParams);
+        host.onWebViewReplaced(replacement);
+
+        long backoffMs = getBackoffMs(recentCrashTimesMs.size());
+        cancelPendingReload();
+        String reloadUrl = roomUrlString;
+        pendingReload = () -> {
+            pendingReload = null;
+            replacement.loadUrl(reloadUrl);
+        };
+        handler.postDelayed(pendingReload, backoffMs);
+
+        Log.i(TAG, "Reloading room in " + backoffMs + " ms");
+        return true;
+    }
+
+    /**
+     * Should be called from WebViewClient.onPageFinished(). Completes the timing of an
+     * ongoing recovery, if any.
+     */
+    public void onPageFinished() {
+        if (recoveryStartedAtMs < 0) return;
+
+        long durationMs = SystemClock.elapsedRealtime() - recoveryStartedAtMs;
+        recoveryStartedAtMs = -1;
+        recoveryDurationsMs.add(durationMs);
+        Log.i(TAG, "Recovered from renderer crash in " + durationMs + " ms");
+    }
+
+    // ─────────────────────────────────────────────
+    // Lifecycle
+    // ─────────────────────────────────────────────
+
+    /**
+     * Should be called when the host is destroyed, so no reload is attempted afterwards.
+     */
+    public void release() {
+        released = true;
+        cancelPendingReload();
+    }
+
+    // ─────────────────────────────────────────────
+    // Metrics
+    // ─────────────────────────────────────────────
+
+    /**
+     * @return The time, in milliseconds, from renderer death to the reloaded room page
+     * finishing its load, for every completed recovery in this session.
+     */
+    public List<Long> getRecoveryDurationsMs() {
+        return Collections.unmodifiableList(new ArrayList<>(recoveryDurationsMs));
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    private void cancelPendingReload() {
+        if (pendingReload != null) {
+            handler.removeCallbacks(pendingReload);
+            pendingReload = null;
+        }
+    }
+
+    private static long getBackoffMs(int crashesInWindow) {
+        if (crashesInWindow <= 1) return 0;
+        return Math.min(BASE_BACKOFF_MS << (crashesInWindow - 2), MAX_BACKOFF_MS);
+    }
+}
@@ -0,0 +1,407 @@
+package com.example.wherebywebviewdemo;
+
+import android.util.Log;
+import android.webkit.JavascriptInterface;
+import android.webkit.WebView;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ResourceTimingCollector shows which subresources make the room page slow to load.
+ * A script injected when the page starts loading observes the page's resource,
+ * navigation, paint and long-task entries, and sends them in compact batches over a
+ * JavaScript interface.
+ *
+ * Entries are aggregated per origin and type (count, transferred bytes, duration
+ * percentiles, cache-hit ratio) in fixed-size tables:
+ * - at most MAX_ORIGINS origins are tracked; later ones are counted as "other",
+ * - durations go into a logarithmic histogram, so p50/p95 are accurate to about 20%.
+ *
+ * Aggregates cover the whole session, across page loads and WebView replacements, and
+ * are read through query() and getStats().
+ */
+public class ResourceTimingCollector {
+
+    /**
+     * What an entry measures. Resources are typed by their initiator.
+     */
+    public enum Type {
+        NAVIGATION,
+        SCRIPT("script"),
+        LINK("link"),
+        IMAGE("img", "image"),
+        CSS("css"),
+        FETCH("fetch", "xmlhttprequest", "beacon"),
+        IFRAME("iframe", "frame"),
+        MEDIA("video", "audio", "track"),
+        OTHER,
+        // Duration is the paint's start time
+        PAINT,
+        LONG_TASK;
+
+        private final String[] initiatorTypes;
+
+        Type(String... initiatorTypes) {
+            this.initiatorTypes = initiatorTypes;
+        }
+    }
+
+    /**
+     * Aggregates for one origin and type, or a merge of several.
+     */
+    public static final class Stats {
+        public final String origin;
+        public final @Nullable Type type;
+        public final long count;
+        public final long transferBytes;
+        public final long p50DurationMs;
+        public final long p95DurationMs;
+        // Among entries whose sizes are exposed to the page, or -1 if there are none
+        public final float cacheHitRatio;
+
+        Stats(String origin, @Nullable Type type, long count, long transferBytes,
+              long p50DurationMs, long p95DurationMs, float cacheHitRatio) {
+            this.origin = origin;
+            this.type = type;
+            this.count = count;
+            this.transferBytes = transferBytes;
+            this.p50DurationMs = p50DurationMs;
+            this.p95DurationMs = p95DurationMs;
+            this.cacheHitRatio = cacheHitRatio;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s %s: count=%d bytes=%dKB p50=%dms p95=%dms cacheHit=%s",
+                    origin, type != null ? type : "ALL", count, transferBytes / 1024, p50DurationMs,
+                    p95DurationMs, cacheHitRatio >= 0 ? Math.round(cacheHitRatio * 100) + "%" : "n/a");
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    private static final String TAG = "ResourceTimingCollector";
+    private static final String JS_INTERFACE_NAME = "resourceTimingCollector";
+
+    public static final int MAX_ORIGINS = 32;
+    public static final String OTHER_ORIGIN = "other";
+
+    // Batch entry flags, set by the script
+    static final int FLAG_CACHE_HIT = 1;
+    static final int FLAG_SIZES_HIDDEN = 2;
+
+    // Two buckets per power of two from 1 ms; the last one holds everything over 32 s
+    private static final int BUCKET_COUNT = 32;
+
+    private static final int BATCH_INTERVAL_MS = 2_000;
+    private static final int BATCH_MAX_ENTRIES = 100;
+
+    private static final Type[] TYPES = Type.values();
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    // origins[i] is the origin of row i; row MAX_ORIGINS collects the overflow
+    private final String[] origins = new String[MAX_ORIGINS + 1];
+    private final Map<String, Integer> originRows = new HashMap<>();
+
+    // Indexed by row * TYPES.length + type
+    private final long[] counts = new long[(MAX_ORIGINS + 1) * TYPES.length];
+    private final long[] transferBytes = new long[counts.length];
+    private final long[] sizedCounts = new long[counts.length];
+    private final long[] cacheHits = new long[counts.length];
+    private final int[] histograms = new int[counts.length * BUCKET_COUNT];
+
+    private long batches = 0;
+    private long droppedBatches = 0;
+
+    public ResourceTimingCollector() {
+        origins[MAX_ORIGINS] = OTHER_ORIGIN;
+    }
+
+    // ─────────────────────────────────────────────
+    // WebView
+    // ─────────────────────────────────────────────
+
+    /**
+     * Registers the JavaScript interface on the given WebView.
+     */
+    public void attachToWebView(WebView webView) {
+        webView.addJavascriptInterface(this, JS_INTERFACE_NAME);
+    }
+
+    public void detachFromWebView(WebView webView) {
+        webView.removeJavascriptInterface(JS_INTERFACE_NAME);
+    }
+
+    /**
+     * Should be called from WebViewClient.onPageStarted(), and again from onPageFinished()
+     * in case the first injection ran before the new document existed. The observer
+     * replays entries buffered before it was installed.
+     */
+    public void injectObserver(WebView webView) {
+        webView.evaluateJavascript(OBSERVER_SCRIPT, null);
+    }
+
+    // ─────────────────────────────────────────────
+    // JavaScript Interface
+    // ─────────────────────────────────────────────
+
+    /**
+     * Receives a batch from the page:
+     * {"o": [origins], "e": [[type, origin index, duration ms, transfer bytes, flags], ...]}
+     */
+    @JavascriptInterface
+    public void onBatch(String batchJson) {
+        try {
+            JSONObject batch = new JSONObject(batchJson);
+            JSONArray batchOrigins = batch.getJSONArray("o");
+            JSONArray entries = batch.getJSONArray("e");
+
+            synchronized (this) {
+                batches++;
+                for (int i = 0; i < entries.length(); i++) {
+                    JSONArray entry = entries.getJSONArray(i);
+                    int typeIndex = entry.getInt(0);
+                    if (typeIndex < 0 || typeIndex >= TYPES.length) continue;
+
+                    record(
+                            TYPES[typeIndex],
+                            batchOrigins.getString(entry.getInt(1)),
+                            entry.getLong(2),
+                            entry.getLong(3),
+                            entry.getInt(4)
+                    );
+                }
+            }
+        } catch (JSONException e) {
+            synchronized (this) {
+                droppedBatches++;
+            }
+            Log.w(TAG, "Dropping malformed batch", e);
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Query API
+    // ─────────────────────────────────────────────
+
+    /**
+     * Merges the aggregates matching the given origin and type.
+     *
+     * @param origin An origin such as "https://whereby.com", OTHER_ORIGIN, or null for all.
+     * @param type   A type, or null for all.
+     */
+    public synchronized Stats query(@Nullable String origin, @Nullable Type type) {
+        int fromRow = 0;
+        int toRow = MAX_ORIGINS;
+        if (origin != null) {
+            Integer row = OTHER_ORIGIN.equals(origin) ? Integer.valueOf(MAX_ORIGINS) : originRows.get(origin);
+            if (row == null) {
+                return new Stats(origin, type, 0, 0, 0, 0, -1);
+            }
+            fromRow = row;
+            toRow = row;
+        }
+
+        long count = 0;
+        long bytes = 0;
+        long sized = 0;
+        long hits = 0;
+        int[] histogram = new int[BUCKET_COUNT];
+        for (int row = fromRow; row <= toRow; row++) {
+            for (Type candidate : TYPES) {
+                if (type != null && candidate != type) continue;
+
+                int slot = row * TYPES.length + candidate.ordinal();
+                count += counts[slot];
+                bytes += transferBytes[slot];
+                sized += sizedCounts[slot];
+                hits += cacheHits[slot];
+                for (int b = 0; b < BUCKET_COUNT; b++) {
+                    histogram[b] += histograms[slot * BUCKET_COUNT + b];
+                }
+            }
+        }
+
+        return new Stats(origin != null ? origin : "*", type, count, bytes,
+                percentile(histogram, count, 0.50), percentile(histogram, count, 0.95),
+                sized > 0 ? (float) hits / sized : -1);
+    }
+
+    /**
+     * @return Aggregates for every origin and type seen so far, most entries first.
+     */
+    public synchronized List<Stats> getStats() {
+        List<Stats> stats = new ArrayList<>();
+        for (int row = 0; row <= MAX_ORIGINS; row++) {
+            if (origins[row] == null) continue;
+
+            for (Type type : TYPES) {
+                if (counts[row * TYPES.length + type.ordinal()] > 0) {
+                    stats.add(query(origins[row], type));
+                }
+            }
+        }
+        Collections.sort(stats, (a, b) -> Long.compare(b.count, a.count));
+        return stats;
+    }
+
+    public synchronized long getBatchCount() {
+        return batches;
+    }
+
+    public synchronized long getDroppedBatchCount() {
+        return droppedBatches;
+    }
+
+    /**
+     * Logs the aggregates, e.g. when the room is closed.
+     */
+    public void logSummary() {
+        Log.i(TAG, "Resource timing (" + getBatchCount() + " batches, " + getDroppedBatchCount()
+                + " dropped): " + query(null, null));
+        for (Stats stats : getStats()) {
+            Log.i(TAG, "  " + stats);
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Aggregation
+    // ─────────────────────────────────────────────
+
+    synchronized void record(Type type, String origin, long durationMs, long transferSize, int flags) {
+        int slot = rowFor(origin) * TYPES.length + type.ordinal();
+        counts[slot]++;
+        if ((flags & FLAG_SIZES_HIDDEN) == 0) {
+            transferBytes[slot] += Math.max(0, transferSize);
+            sizedCounts[slot]++;
+            if ((flags & FLAG_CACHE_HIT) != 0) {
+                cacheHits[slot]++;
+            }
+        }
+        histograms[slot * BUCKET_COUNT + bucketFor(durationMs)]++;
+    }
+
+    private int rowFor(String origin) {
+        Integer row = originRows.get(origin);
+        if (row != null) return row;
+
+        int size = originRows.size();
+        if (size >= MAX_ORIGINS) return MAX_ORIGINS;
+
+        origins[size] = origin;
+        originRows.put(origin, size);
+        return size;
+    }
+
+    static int bucketFor(long durationMs) {
+        if (durationMs < 1) return 0;
+        // Bucket b (b >= 1) holds [2^((b-1)/2), 2^(b/2))
+        int bucket = 1 + (int) Math.floor(2 * Math.log(durationMs) / Math.log(2));
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * @return The geometric middle of the bucket holding the q-th entry.
+     */
+    static long percentile(int[] histogram, long count, double q) {
+        if (count == 0) return 0;
+
+        long rank = (long) Math.ceil(q * count);
+        long seen = 0;
+        for (int b = 0; b < histogram.length; b++) {
+            seen += histogram[b];
+            if (seen >= rank) {
+                return b == 0 ? 0 : Math.round(Math.pow(2, (b - 0.5) / 2));
+            }
+        }
+        return Math.round(Math.pow(2, (histogram.length - 1.5) / 2));
+    }
+
+    // ─────────────────────────────────────────────
+    // Script
+    // ─────────────────────────────────────────────
+
+    // Batches index origins in a per-batch table and send numbers only. Flushed every
+    // BATCH_INTERVAL_MS, when BATCH_MAX_ENTRIES are pending, and when the page is hidden.
+    private static final String OBSERVER_SCRIPT = "(function() {" +
+            "if (window.__resourceTimingInstalled || !window.PerformanceObserver) return;" +
+            "window.__resourceTimingInstalled = true;" +
+            "const types = " + initiatorTypeCodes() + ";" +
+            "let origins = [], originIndex = {}, entries = [];" +
+            "function originOf(name) {" +
+            "  try { return new URL(name, location.href).origin; } catch (e) { return location.origin; }" +
+            "}" +
+            "function add(type, name, duration, transferSize, flags) {" +
+            "  const origin = originOf(name);" +
+            "  let index = originIndex[origin];" +
+            "  if (index === undefined) { index = originIndex[origin] = origins.length; origins.push(origin); }" +
+            "  entries.push([type, index, Math.round(duration), transferSize, flags]);" +
+            "  if (entries.length >= " + BATCH_MAX_ENTRIES + ") flush();" +
+            "}" +
+            "function flush() {" +
+            "  if (!entries.length) return;" +
+            "  window." + JS_INTERFACE_NAME + ".onBatch(JSON.stringify({o: origins, e: entries}));" +
+            "  origins = []; originIndex = {}; entries = [];" +
+            "}" +
+            "function sized(entry, type) {" +
+            // Cross-origin resources without Timing-Allow-Origin report zero sizes
+            "  const hidden = entry.transferSize === 0 && entry.decodedBodySize === 0;" +
+            "  const hit = !hidden && entry.transferSize === 0;" +
+            "  add(type, entry.name, entry.duration, entry.transferSize || 0," +
+            "      (hit ? " + FLAG_CACHE_HIT + " : 0) | (hidden ? " + FLAG_SIZES_HIDDEN + " : 0));" +
+            "}" +
+            "function observe(entryType, handle) {" +
+            "  try {" +
+            "    new PerformanceObserver(function(list) { list.getEntries().forEach(handle); })" +
+            "      .observe({type: entryType, buffered: true});" +
+            "  } catch (e) { }" +
+            "}" +
+            "if (performance.setResourceTimingBufferSize) performance.setResourceTimingBufferSize(1000);" +
+            "observe('resource', function(e) {" +
+            "  const type = types[e.initiatorType];" +
+            "  sized(e, type === undefined ? " + Type.OTHER.ordinal() + " : type);" +
+            "});" +
+            "observe('navigation', function(e) { sized(e, " + Type.NAVIGATION.ordinal() + "); });" +
+            "observe('paint', function(e) {" +
+            "  add(" + Type.PAINT.ordinal() + ", location.href, e.startTime, 0, " + FLAG_SIZES_HIDDEN + ");" +
+            "});" +
+            "observe('longtask', function(e) {" +
+            "  add(" + Type.LONG_TASK.ordinal() + ", location.href, e.duration, 0, " + FLAG_SIZES_HIDDEN + ");" +
+            "});" +
+            "setInterval(flush, " + BATCH_INTERVAL_MS + ");" +
+            "document.addEventListener('visibilitychange', function() {" +
+            "  if (document.visibilityState === 'hidden') flush();" +
+            "});" +
+            "window.addEventListener('pagehide', flush);" +
+            "})()";
+
+    /**
+     * @return A JavaScript object literal mapping initiator types to Type ordinals.
+     */
+    private static String initiatorTypeCodes() {
+        StringBuilder codes = new StringBuilder("{");
+        for (Type type : TYPES) {
+            for (String initiatorType : type.initiatorTypes) {
+                if (codes.length() > 1) codes.append(',');
+                codes.append(initiatorType).append(':').append(type.ordinal());
+            }
+        }
+        return codes.append('}').toString();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.wherebywebviewdemo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.BaseColumns;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SavedDownloadIndex remembers which downloaded contents have already been saved to the
+ * gallery, keyed by a SHA-256 hash of their bytes. Saving the same recording or image
+ * again can then reuse the existing entry instead of writing a duplicate copy.
+ *
+ * The index is persisted in SharedPreferences and bounded: the least recently used
+ * entries are evicted once it grows past its capacity. It is owned by DownloadQueue's
+ * save path, which runs in the launcher process only; every operation re-reads the
+ * stored entries, so short-lived instances never write back a stale copy.
+ */
+public class SavedDownloadIndex {
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    private static final String PREFS_NAME = "saved_download_index";
+    private static final String KEY_ENTRIES = "entries";
+    private static final int MAX_ENTRIES = 128;
+    private static final int HASH_CHUNK_SIZE = 64 * 1024;
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final Context context;
+    private final SharedPreferences preferences;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public SavedDownloadIndex(Context context) {
+        this.context = context.getApplicationContext();
+        this.preferences = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    // ─────────────────────────────────────────────
+    // Public API
+    // ─────────────────────────────────────────────
+
+    /**
+     * Computes the hex-encoded SHA-256 hash of the given content, feeding the digest in
+     * fixed-size chunks.
+     *
+     * @param data The content to hash.
+     * @return The hash used as key in this index.
+     */
+    public static String computeHash(byte[] data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not supported", e);
+        }
+
+        for (int offset = 0; offset < data.length; offset += HASH_CHUNK_SIZE) {
+            digest.update(data, offset, Math.min(HASH_CHUNK_SIZE, data.length - offset));
+        }
+
+        byte[] hash = digest.digest();
+        StringBuilder builder = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Looks up previously saved content by hash. Entries whose Uri no longer exists
+     * (e.g., the user deleted the file from the gallery) are dropped.
+     *
+     * @param hash The hash returned by {@link #computeHash(byte[])}.
+     * @return The Uri of the existing copy, or null if the content must be saved.
+     */
+    public synchronized @Nullable Uri findExisting(String hash) {
+        load();
+        String uriString = entries.get(hash);
+        if (uriString == null) return null;
+
+        // Recency is only persisted by put(); a lookup writes nothing unless the entry is stale
+        Uri uri = Uri.parse(uriString);
+        if (uriExists(uri)) return uri;
+
+        entries.remove(hash);
+        persist();
+        return null;
+    }
+
+    /**
+     * Records that content with the given hash has been saved at the given Uri,
+     * evicting the least recently used entries if the index is full.
+     *
+     * @param hash The hash returned by {@link #computeHash(byte[])}.
+     * @param uri  Where the content was saved.
+     */
+    public synchronized void put(String hash, Uri uri) {
+        load();
+        entries.put(hash, uri.toString());
+
+        Iterator<Map.Entry<String, String>> iterator = entries.entrySet().iterator();
+        while (entries.size() > MAX_ENTRIES && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+
+        persist();
+    }
+
+    // ─────────────────────────────────────────────
+    // Persistence
+    // ─────────────────────────────────────────────
+
+    private void load() {
+        entries.clear();
+        String serialized = preferences.getString(KEY_ENTRIES, null);
+        if (serialized == null) return;
+
+        try {
+            JSONArray array = new JSONArray(serialized);
+            for (int i = 0; i < array.length(); i++) {
+                JSONArray entry = array.getJSONArray(i);
+                entries.put(entry.getString(0), entry.getString(1));
+            }
+        } catch (JSONException e) {
+            // A corrupt index only costs us deduplication; start over.
+            entries.clear();
+        }
+    }
+
+    private void persist() {
+        JSONArray array = new JSONArray();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            JSONArray pair = new JSONArray();
+            pair.put(entry.getKey());
+            pair.put(entry.getValue());
+            array.put(pair);
+        }
+        // Committed, so the next load() of another instance sees it
+        preferences.edit().putString(KEY_ENTRIES, array.toString()).commit();
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    private boolean uriExists(Uri uri) {
+        if ("file".equals(uri.getScheme())) {
+            String path = uri.getPath();
+            return path != null && new File(path).exists();
+        }
+
+        try (Cursor cursor = context.getContentResolver().query(
+                uri, new String[]{BaseColumns._ID}, null, null, null)) {
+            return cursor != null && cursor.moveToFirst();
+        } catch (SecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
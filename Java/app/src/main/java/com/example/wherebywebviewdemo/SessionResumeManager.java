@@ -0,0 +1,196 @@
+package com.example.wherebywebviewdemo;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.CookieManager;
+import android.webkit.JavascriptInterface;
+import android.webkit.WebView;
+
+import androidx.annotation.Nullable;
+
+import java.util.UUID;
+
+/**
+ * SessionResumeManager is the WebView host's side of session resume. It:
+ * - flushes cookies to disk at lifecycle points, so a relaunch finds the session intact,
+ * - remembers whether the camera and microphone were on, as reported by a script
+ *   injected into the room page,
+ * - marks the room as left when the host goes away, and
+ * - measures the time from launch to the room page being loaded, for warm and cold joins.
+ */
+public class SessionResumeManager {
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private static final String TAG = "SessionResumeManager";
+    private static final String JS_INTERFACE_NAME = "sessionResumeHandler";
+    private static final long REPORT_INTERVAL_MS = 5_000;
+
+    // Reports whether the page's capture tracks are enabled, as toggled by the room's
+    // camera and microphone buttons. Nothing is reported once every track has ended
+    // (e.g., when leaving), so the last choices made in the call are kept.
+    private static final String DEVICE_STATE_SCRIPT = "(function(token) {" +
+            "if (window.__sessionResumeInstalled || !navigator.mediaDevices) return;" +
+            "window.__sessionResumeInstalled = true;" +
+            "const tracks = new Set();" +
+            "let last = null;" +
+            "function report() {" +
+            "  let live = false, camera = false, microphone = false;" +
+            "  tracks.forEach(function(t) {" +
+            "    if (t.readyState !== 'live') { tracks.delete(t); return; }" +
+            "    live = true;" +
+            "    if (!t.enabled) return;" +
+            "    if (t.kind === 'audio') microphone = true; else camera = true;" +
+            "  });" +
+            "  const state = camera + ',' + microphone;" +
+            "  if (!live || state === last) return;" +
+            "  last = state;" +
+            "  window." + JS_INTERFACE_NAME + ".rememberDevices(token, camera, microphone);" +
+            "}" +
+            "const getUserMedia = navigator.mediaDevices.getUserMedia.bind(navigator.mediaDevices);" +
+            "navigator.mediaDevices.getUserMedia = function(constraints) {" +
+            "  return getUserMedia(constraints).then(function(stream) {" +
+            "    stream.getTracks().forEach(function(t) { tracks.add(t); });" +
+            "    report();" +
+            "    return stream;" +
+            "  });" +
+            "};" +
+            "setInterval(report, " + REPORT_INTERVAL_MS + ");" +
+            "})";
+
+    private final SessionResumeStore store;
+    private final boolean warmJoin;
+    private final long joinStartedAtMs;
+    private boolean joinRecorded = false;
+    private long joinLatencyMs = -1;
+    // Handed only to the script injected into a room page: the interface is exposed to
+    // every page and frame the WebView loads, which must not change the choices
+    private volatile @Nullable String reportToken;
+
+    /**
+     * @param store           Persistent session state shared with the launcher.
+     * @param warmJoin        Whether the room was launched through the resume fast path.
+     * @param joinStartedAtMs SystemClock.elapsedRealtime() when the join was started, or -1 if unknown.
+     */
+    public SessionResumeManager(SessionResumeStore store, boolean warmJoin, long joinStartedAtMs) {
+        this.store = store;
+        this.warmJoin = warmJoin;
+        this.joinStartedAtMs = joinStartedAtMs;
+    }
+
+    /**
+     * Registers the JavaScript interface on the given WebView.
+     */
+    public void attachToWebView(WebView webView) {
+        webView.addJavascriptInterface(this, JS_INTERFACE_NAME);
+    }
+
+    /**
+     * Removes the JavaScript interface registered by attachToWebView().
+     */
+    public void detachFromWebView(WebView webView) {
+        webView.removeJavascriptInterface(JS_INTERFACE_NAME);
+    }
+
+    // ─────────────────────────────────────────────
+    // JavaScript Interface
+    // ─────────────────────────────────────────────
+
+    /**
+     * Called by the injected script when the camera or microphone is turned on or off.
+     */
+    @JavascriptInterface
+    public void rememberDevices(String token, boolean cameraEnabled, boolean microphoneEnabled) {
+        String expectedToken = reportToken;
+        if (expectedToken == null || !expectedToken.equals(token)) {
+            Log.w(TAG, "Ignoring device state reported from outside the room page");
+            return;
+        }
+        store.rememberDevices(cameraEnabled, microphoneEnabled);
+    }
+
+    // ─────────────────────────────────────────────
+    // WebView and lifecycle callbacks
+    // ─────────────────────────────────────────────
+
+    /**
+     * Should be called from WebViewClient.onPageStarted(). Installs the device state
+     * reporter before the room asks for media, if the page belongs to the room's origin.
+     */
+    public void onPageStarted(WebView webView, String url) {
+        reportToken = isRoomOrigin(url) ? UUID.randomUUID().toString() : null;
+        injectReporter(webView);
+    }
+
+    /**
+     * Should be called from WebViewClient.onPageFinished(). Installs the device state
+     * reporter if onPageStarted() was too early for it, and the first call completes the
+     * join latency measurement.
+     */
+    public void onPageFinished(WebView webView) {
+        injectReporter(webView);
+
+        if (joinRecorded || joinStartedAtMs < 0) return;
+        joinRecorded = true;
+
+        long latencyMs = SystemClock.elapsedRealtime() - joinStartedAtMs;
+        joinLatencyMs = latencyMs;
+        store.recordJoinLatency(warmJoin, latencyMs);
+        Log.i(TAG, (warmJoin ? "Warm" : "Cold") + " join took " + latencyMs + " ms (average "
+                + store.getAverageJoinLatencyMs(warmJoin) + " ms)");
+    }
+
+    /**
+     * Should be called when the host is paused, since the process may be killed afterwards.
+     */
+    public void onPause() {
+        CookieManager.getInstance().flush();
+    }
+
+    /**
+     * Should be called when the host is destroyed and the room has been left.
+     */
+    public void onLeave() {
+        CookieManager.getInstance().flush();
+        store.markLeft();
+    }
+
+    // ─────────────────────────────────────────────
+    // Metrics
+    // ─────────────────────────────────────────────
+
+    public boolean isWarmJoin() {
+        return warmJoin;
+    }
+
+    /**
+     * @return The time from launch to the room page being loaded, or -1 if not measured yet.
+     */
+    public long getJoinLatencyMs() {
+        return joinLatencyMs;
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    private void injectReporter(WebView webView) {
+        String token = reportToken;
+        if (token != null) {
+            webView.evaluateJavascript(DEVICE_STATE_SCRIPT + "('" + token + "')", null);
+        }
+    }
+
+    private boolean isRoomOrigin(@Nullable String url) {
+        String room = store.getRoom();
+        if (room == null || url == null) return false;
+
+        Uri roomUri = Uri.parse(room);
+        Uri pageUri = Uri.parse(url);
+        return roomUri.getScheme() != null && roomUri.getScheme().equals(pageUri.getScheme())
+                && roomUri.getAuthority() != null && roomUri.getAuthority().equals(pageUri.getAuthority());
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.wherebywebviewdemo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Bundle;
+
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SessionResumeStore persists what is needed to re-enter a recently left room quickly:
+ * the room, the display name and the camera/microphone choices made in the previous
+ * session, and when that session ended. It also keeps join latency statistics for
+ * warm (resumed) and cold joins so both paths can be compared.
+ */
+public class SessionResumeStore {
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    // How long after leaving a room it can be re-entered through the fast path
+    public static final long RESUME_WINDOW_MS = 15 * 60 * 1000;
+
+    // Whereby room URL parameters used to skip redundant pre-join steps
+    private static final String PARAM_DISPLAY_NAME = "displayName";
+    private static final String PARAM_AUDIO = "audio";
+    private static final String PARAM_VIDEO = "video";
+    private static final String PARAM_PRECALL_REVIEW = "precallReview";
+
+    private static final String PREFS_NAME = "session_resume";
+    private static final String KEY_ROOM = "room";
+    private static final String KEY_DISPLAY_NAME = "displayName";
+    private static final String KEY_CAMERA_ENABLED = "cameraEnabled";
+    private static final String KEY_MICROPHONE_ENABLED = "microphoneEnabled";
+    private static final String KEY_LEFT_AT = "leftAt";
+    private static final String KEY_JOIN_COUNT_PREFIX = "joinCount_";
+    private static final String KEY_JOIN_TOTAL_MS_PREFIX = "joinTotalMs_";
+
+    // Describe the last session, as opposed to the statistics kept across sessions
+    private static final String[] SESSION_KEYS = {
+            KEY_ROOM, KEY_DISPLAY_NAME, KEY_CAMERA_ENABLED, KEY_MICROPHONE_ENABLED, KEY_LEFT_AT
+    };
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final SharedPreferences preferences;
+
+    public SessionResumeStore(Context context) {
+        this.preferences = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    // ─────────────────────────────────────────────
+    // Session state
+    // ─────────────────────────────────────────────
+
+    /**
+     * Records the room being joined. A display name passed in the URL is remembered as well.
+     * Switching to a different room forgets the previous session's choices.
+     *
+     * @param roomUrl The full room URL, including parameters.
+     */
+    public void rememberRoom(String roomUrl) {
+        String room = UrlUtils.stripQuery(roomUrl);
+        SharedPreferences.Editor editor = preferences.edit();
+
+        if (!room.equals(preferences.getString(KEY_ROOM, null))) {
+            editor.remove(KEY_DISPLAY_NAME)
+                    .remove(KEY_CAMERA_ENABLED)
+                    .remove(KEY_MICROPHONE_ENABLED);
+        }
+
+        String displayName = Uri.parse(roomUrl).getQueryParameter(PARAM_DISPLAY_NAME);
+        if (displayName != null && !displayName.isEmpty()) {
+            editor.putString(KEY_DISPLAY_NAME, displayName);
+        }
+
+        editor.putString(KEY_ROOM, room)
+                .remove(KEY_LEFT_AT)
+                .apply();
+    }
+
+    public void rememberDevices(boolean cameraEnabled, boolean microphoneEnabled) {
+        preferences.edit()
+                .putBoolean(KEY_CAMERA_ENABLED, cameraEnabled)
+                .putBoolean(KEY_MICROPHONE_ENABLED, microphoneEnabled)
+                .apply();
+    }
+
+    /**
+     * Records that the user left the current room, which opens the resume window.
+     */
+    public void markLeft() {
+        if (preferences.getString(KEY_ROOM, null) == null) return;
+        preferences.edit().putLong(KEY_LEFT_AT, System.currentTimeMillis()).apply();
+    }
+
+    /**
+     * @param roomUrl The room URL about to be launched.
+     * @return true if this room was left recently enough to be re-entered through the fast path.
+     */
+    public boolean canResume(String roomUrl) {
+        String room = preferences.getString(KEY_ROOM, null);
+        long leftAt = preferences.getLong(KEY_LEFT_AT, -1);
+        if (room == null || leftAt < 0) return false;
+
+        long elapsed = System.currentTimeMillis() - leftAt;
+        return room.equals(UrlUtils.stripQuery(roomUrl)) && elapsed >= 0 && elapsed <= RESUME_WINDOW_MS;
+    }
+
+    /**
+     * Adds the remembered display name and device choices to the room URL and turns off the
+     * pre-call review, so the room is entered without going through the lobby again.
+     * Parameters already present in the URL take precedence.
+     */
+    public String buildResumeUrl(String roomUrl) {
+        Map<String, String> params = new LinkedHashMap<>();
+
+        String displayName = getDisplayName();
+        if (displayName != null) {
+            params.put(PARAM_DISPLAY_NAME, displayName);
+        }
+        if (preferences.contains(KEY_CAMERA_ENABLED)) {
+            params.put(PARAM_VIDEO, preferences.getBoolean(KEY_CAMERA_ENABLED, true) ? "on" : "off");
+        }
+        if (preferences.contains(KEY_MICROPHONE_ENABLED)) {
+            params.put(PARAM_AUDIO, preferences.getBoolean(KEY_MICROPHONE_ENABLED, true) ? "on" : "off");
+        }
+        params.put(PARAM_PRECALL_REVIEW, "off");
+
+        return UrlUtils.appendParams(roomUrl, params);
+    }
+
+    /**
+     * @return The last room joined, without its parameters, or null.
+     */
+    public @Nullable String getRoom() {
+        return preferences.getString(KEY_ROOM, null);
+    }
+
+    public @Nullable String getDisplayName() {
+        return preferences.getString(KEY_DISPLAY_NAME, null);
+    }
+
+    // ─────────────────────────────────────────────
+    // Join latency
+    // ─────────────────────────────────────────────
+
+    public void recordJoinLatency(boolean warm, long latencyMs) {
+        String mode = warm ? "warm" : "cold";
+        preferences.edit()
+                .putLong(KEY_JOIN_COUNT_PREFIX + mode, preferences.getLong(KEY_JOIN_COUNT_PREFIX + mode, 0) + 1)
+                .putLong(KEY_JOIN_TOTAL_MS_PREFIX + mode, preferences.getLong(KEY_JOIN_TOTAL_MS_PREFIX + mode, 0) + latencyMs)
+                .apply();
+    }
+
+    /**
+     * @param warm true for resumed joins, false for cold joins.
+     * @return The average time from launch to the room page being loaded, or -1 if unknown.
+     */
+    public long getAverageJoinLatencyMs(boolean warm) {
+        String mode = warm ? "warm" : "cold";
+        long count = preferences.getLong(KEY_JOIN_COUNT_PREFIX + mode, 0);
+        if (count == 0) return -1;
+        return preferences.getLong(KEY_JOIN_TOTAL_MS_PREFIX + mode, 0) / count;
+    }
+
+    /**
+     * @return How many joins of the given kind have been measured so far.
+     */
+    public long getJoinCount(boolean warm) {
+        return preferences.getLong(KEY_JOIN_COUNT_PREFIX + (warm ? "warm" : "cold"), 0);
+    }
+
+    /**
+     * @return The sum of all measured join latencies of the given kind, in milliseconds.
+     */
+    public long getJoinTotalMs(boolean warm) {
+        return preferences.getLong(KEY_JOIN_TOTAL_MS_PREFIX + (warm ? "warm" : "cold"), 0);
+    }
+
+    // ─────────────────────────────────────────────
+    // Cross-process hand-over
+    // ─────────────────────────────────────────────
+
+    /**
+     * SharedPreferences are cached per process, so a room hosted in the call process
+     * hands its final state back to the launcher rather than relying on the shared file.
+     *
+     * @return Every stored value, to be passed to importState() in the other process.
+     */
+    public Bundle exportState() {
+        Bundle state = new Bundle();
+        for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof String) {
+                state.putString(entry.getKey(), (String) value);
+            } else if (value instanceof Long) {
+                state.putLong(entry.getKey(), (Long) value);
+            } else if (value instanceof Boolean) {
+                state.putBoolean(entry.getKey(), (Boolean) value);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Merges a state exported by another process into the stored one. Values written only
+     * by this process (e.g., join statistics of rooms hosted here) are kept, while the
+     * session's choices follow the exported state, including those it no longer has.
+     */
+    public void importState(Bundle state) {
+        SharedPreferences.Editor editor = preferences.edit();
+        for (String key : SESSION_KEYS) {
+            if (!state.containsKey(key)) {
+                editor.remove(key);
+            }
+        }
+        for (String key : state.keySet()) {
+            Object value = state.get(key);
+            if (value instanceof String) {
+                editor.putString(key, (String) value);
+            } else if (value instanceof Long) {
+                editor.putLong(key, (Long) value);
+            } else if (value instanceof Boolean) {
+                editor.putBoolean(key, (Boolean) value);
+            }
+        }
+        editor.apply();
+    }
+}
@@ -0,0 +1,399 @@
+package com.example.wherebywebviewdemo;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.WebStorage;
+import android.webkit.WebView;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StorageMaintenance keeps the storage of long-lived installs bounded, so cold start and
+ * the first room load do not slow down over time. A run:
+ * - measures the WebView's data (IndexedDB, service worker caches, local storage),
+ *   its HTTP cache and the app cache directory,
+ * - trims per-origin web storage to a budget through WebStorage, largest origins first
+ *   and the current room's origin last,
+ * - clears the HTTP cache when it exceeds its budget,
+ * - deletes "_blobfile" temporary files left behind in the cache directory by earlier
+ *   versions' downloads, and temporary journal files left behind in the download queue
+ *   by killed processes,
+ * - reports the bytes reclaimed and how cold joins performed before and after the
+ *   previous run.
+ *
+ * Nothing is trimmed while a room is open, in this process or in the call process.
+ * Runs are scheduled by StorageMaintenanceJobService while the device is charging.
+ */
+public class StorageMaintenance {
+
+    /**
+     * Outcome of a maintenance run.
+     */
+    public static final class Report {
+        public long webViewDataBytesBefore;
+        public long webViewDataBytesAfter;
+        public long webViewCacheBytesBefore;
+        public long webViewCacheBytesAfter;
+        public long appCacheBytesBefore;
+        public long appCacheBytesAfter;
+        public int originsDeleted;
+        public int orphanedFilesDeleted;
+        public boolean httpCacheCleared;
+        // Average cold join latency around the previous run, or -1 if not enough joins
+        public long coldJoinMsBeforePreviousRun = -1;
+        public long coldJoinMsAfterPreviousRun = -1;
+        public long durationMs;
+        public @Nullable String skippedReason;
+
+        public long getReclaimedBytes() {
+            return (webViewDataBytesBefore + appCacheBytesBefore)
+                    - (webViewDataBytesAfter + appCacheBytesAfter);
+        }
+
+        @Override
+        public String toString() {
+            if (skippedReason != null) {
+                return "skipped (" + skippedReason + ")";
+            }
+            return String.format(Locale.US,
+                    "reclaimed=%dKB webViewData=%dKB->%dKB webViewCache=%dKB->%dKB appCache=%dKB->%dKB"
+                            + " originsDeleted=%d httpCacheCleared=%b orphanedFiles=%d"
+                            + " coldJoin=%dms->%dms took=%dms",
+                    getReclaimedBytes() / 1024,
+                    webViewDataBytesBefore / 1024, webViewDataBytesAfter / 1024,
+                    webViewCacheBytesBefore / 1024, webViewCacheBytesAfter / 1024,
+                    appCacheBytesBefore / 1024, appCacheBytesAfter / 1024,
+                    originsDeleted, httpCacheCleared, orphanedFilesDeleted,
+                    coldJoinMsBeforePreviousRun, coldJoinMsAfterPreviousRun, durationMs);
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    private static final String TAG = "StorageMaintenance";
+
+    public static final long DEFAULT_ORIGIN_STORAGE_BUDGET_BYTES = 128L * 1024 * 1024;
+    public static final long DEFAULT_HTTP_CACHE_BUDGET_BYTES = 64L * 1024 * 1024;
+
+    // Written to the cache directory by downloads before the DownloadQueue
+    private static final String ORPHANED_BLOB_FILE_SUFFIX = "_blobfile";
+    // See DownloadQueue: entries are written to "<id>.json.tmp" and renamed into place
+    private static final String DOWNLOAD_QUEUE_DIRECTORY_NAME = "download_queue";
+    private static final String ORPHANED_JOURNAL_FILE_SUFFIX = ".tmp";
+    // Younger files may still belong to a download or an entry being written
+    private static final long ORPHANED_FILE_MIN_AGE_MS = 60 * 60 * 1000;
+    private static final long MAIN_THREAD_TIMEOUT_MS = 10_000;
+
+    private static final String PREFS_NAME = "storage_maintenance";
+    private static final String KEY_COLD_JOIN_COUNT_AT_LAST_RUN = "coldJoinCountAtLastRun";
+    private static final String KEY_COLD_JOIN_TOTAL_MS_AT_LAST_RUN = "coldJoinTotalMsAtLastRun";
+    private static final String KEY_COLD_JOIN_MS_BEFORE_LAST_RUN = "coldJoinMsBeforeLastRun";
+
+    // Rooms currently open in this process, see onRoomOpened()/onRoomClosed()
+    private static final AtomicInteger openRooms = new AtomicInteger();
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final Context context;
+    private final long originStorageBudgetBytes;
+    private final long httpCacheBudgetBytes;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public StorageMaintenance(Context context) {
+        this(context, DEFAULT_ORIGIN_STORAGE_BUDGET_BYTES, DEFAULT_HTTP_CACHE_BUDGET_BYTES);
+    }
+
+    /**
+     * @param originStorageBudgetBytes Total web storage (all origins) to trim down to.
+     * @param httpCacheBudgetBytes     HTTP cache size above which the cache is cleared.
+     */
+    public StorageMaintenance(Context context, long originStorageBudgetBytes, long httpCacheBudgetBytes) {
+        this.context = context.getApplicationContext();
+        this.originStorageBudgetBytes = originStorageBudgetBytes;
+        this.httpCacheBudgetBytes = httpCacheBudgetBytes;
+    }
+
+    // ─────────────────────────────────────────────
+    // Room tracking
+    // ─────────────────────────────────────────────
+
+    /**
+     * Should be called by WebView hosts when a room is opened, and paired with onRoomClosed().
+     */
+    public static void onRoomOpened() {
+        openRooms.incrementAndGet();
+    }
+
+    public static void onRoomClosed() {
+        openRooms.decrementAndGet();
+    }
+
+    // ─────────────────────────────────────────────
+    // Run
+    // ─────────────────────────────────────────────
+
+    /**
+     * Measures and trims storage. Blocks while WebView work runs on the main thread.
+     */
+    @WorkerThread
+    public Report run() {
+        long startedAtMs = SystemClock.elapsedRealtime();
+        Report report = new Report();
+
+        if (openRooms.get() > 0) {
+            report.skippedReason = "room open";
+            return report;
+        }
+        if (isCallProcessRunning()) {
+            report.skippedReason = "call process running";
+            return report;
+        }
+
+        File dataDir = new File(context.getApplicationInfo().dataDir);
+        report.webViewDataBytesBefore = sizeOfWebViewDirs(dataDir);
+        report.webViewCacheBytesBefore = sizeOfWebViewDirs(context.getCacheDir());
+        report.appCacheBytesBefore = sizeOf(context.getCacheDir());
+
+        report.originsDeleted = trimOriginStorage();
+        if (report.webViewCacheBytesBefore > httpCacheBudgetBytes) {
+            report.httpCacheCleared = clearHttpCache();
+        }
+        report.orphanedFilesDeleted = deleteOrphanedFiles();
+
+        report.webViewDataBytesAfter = sizeOfWebViewDirs(dataDir);
+        report.webViewCacheBytesAfter = sizeOfWebViewDirs(context.getCacheDir());
+        report.appCacheBytesAfter = sizeOf(context.getCacheDir());
+
+        recordColdJoinTimings(report);
+        report.durationMs = SystemClock.elapsedRealtime() - startedAtMs;
+        Log.i(TAG, "Maintenance " + report);
+        return report;
+    }
+
+    // ─────────────────────────────────────────────
+    // Trimming
+    // ─────────────────────────────────────────────
+
+    /**
+     * Deletes the largest origins until web storage fits the budget. The room's origin,
+     * which holds the session of the next join, goes last.
+     *
+     * @return The number of origins deleted.
+     */
+    private int trimOriginStorage() {
+        List<WebStorage.Origin> origins = new ArrayList<>();
+        boolean listed = runOnMainThread(done -> WebStorage.getInstance().getOrigins(result -> {
+            if (result != null) {
+                for (Object origin : ((Map<?, ?>) result).values()) {
+                    origins.add((WebStorage.Origin) origin);
+                }
+            }
+            done.countDown();
+        }));
+        if (!listed) return 0;
+
+        long totalBytes = 0;
+        for (WebStorage.Origin origin : origins) {
+            totalBytes += origin.getUsage();
+        }
+        if (totalBytes <= originStorageBudgetBytes) return 0;
+
+        String roomOrigin = getRoomOrigin();
+        Collections.sort(origins, (a, b) -> {
+            boolean aIsRoom = a.getOrigin().equals(roomOrigin);
+            boolean bIsRoom = b.getOrigin().equals(roomOrigin);
+            if (aIsRoom != bIsRoom) return aIsRoom ? 1 : -1;
+            return Long.compare(b.getUsage(), a.getUsage());
+        });
+
+        List<String> toDelete = new ArrayList<>();
+        for (WebStorage.Origin origin : origins) {
+            if (totalBytes <= originStorageBudgetBytes) break;
+            toDelete.add(origin.getOrigin());
+            totalBytes -= origin.getUsage();
+        }
+
+        runOnMainThread(done -> {
+            for (String origin : toDelete) {
+                WebStorage.getInstance().deleteOrigin(origin);
+            }
+            done.countDown();
+        });
+        return toDelete.size();
+    }
+
+    private boolean clearHttpCache() {
+        return runOnMainThread(done -> {
+            // The cache is shared by every WebView of the process, so any instance clears it
+            WebView webView = new WebView(context);
+            webView.clearCache(true);
+            webView.destroy();
+            done.countDown();
+        });
+    }
+
+    /**
+     * @return The number of old temporary files deleted from the cache directory and the
+     * download queue. Staged downloads themselves are pruned by DownloadQueue.pruneAbandoned().
+     */
+    private int deleteOrphanedFiles() {
+        return deleteOldFiles(context.getCacheDir(), ORPHANED_BLOB_FILE_SUFFIX)
+                + deleteOldFiles(new File(context.getFilesDir(), DOWNLOAD_QUEUE_DIRECTORY_NAME),
+                ORPHANED_JOURNAL_FILE_SUFFIX);
+    }
+
+    private static int deleteOldFiles(File directory, String suffix) {
+        File[] files = directory.listFiles();
+        if (files == null) return 0;
+
+        long cutoff = System.currentTimeMillis() - ORPHANED_FILE_MIN_AGE_MS;
+        int deleted = 0;
+        for (File file : files) {
+            if (file.isFile() && file.getName().endsWith(suffix)
+                    && file.lastModified() < cutoff && file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    // ─────────────────────────────────────────────
+    // Load timings
+    // ─────────────────────────────────────────────
+
+    /**
+     * Compares the cold joins since the previous run with those before it, and starts a
+     * new window for the next run.
+     */
+    private void recordColdJoinTimings(Report report) {
+        SessionResumeStore sessionStore = new SessionResumeStore(context);
+        SharedPreferences preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+
+        long count = sessionStore.getJoinCount(false);
+        long totalMs = sessionStore.getJoinTotalMs(false);
+        long countAtLastRun = preferences.getLong(KEY_COLD_JOIN_COUNT_AT_LAST_RUN, 0);
+        long totalMsAtLastRun = preferences.getLong(KEY_COLD_JOIN_TOTAL_MS_AT_LAST_RUN, 0);
+
+        // The session store may have been reset since the last run
+        if (count < countAtLastRun) {
+            countAtLastRun = 0;
+            totalMsAtLastRun = 0;
+        }
+
+        long joinsSinceLastRun = count - countAtLastRun;
+        long averageSinceLastRunMs = joinsSinceLastRun > 0
+                ? (totalMs - totalMsAtLastRun) / joinsSinceLastRun
+                : -1;
+
+        report.coldJoinMsBeforePreviousRun = preferences.getLong(KEY_COLD_JOIN_MS_BEFORE_LAST_RUN, -1);
+        report.coldJoinMsAfterPreviousRun = averageSinceLastRunMs;
+
+        preferences.edit()
+                .putLong(KEY_COLD_JOIN_COUNT_AT_LAST_RUN, count)
+                .putLong(KEY_COLD_JOIN_TOTAL_MS_AT_LAST_RUN, totalMs)
+                .putLong(KEY_COLD_JOIN_MS_BEFORE_LAST_RUN, averageSinceLastRunMs)
+                .apply();
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    private interface MainThreadTask {
+        void run(CountDownLatch done);
+    }
+
+    /**
+     * Runs a task on the main thread, where WebView APIs must be called, and waits for it
+     * to count down the latch.
+     *
+     * @return false if the task failed or timed out.
+     */
+    private boolean runOnMainThread(MainThreadTask task) {
+        CountDownLatch done = new CountDownLatch(1);
+        mainHandler.post(() -> {
+            try {
+                task.run(done);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "WebView storage operation failed", e);
+            }
+        });
+        try {
+            return done.await(MAIN_THREAD_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private @Nullable String getRoomOrigin() {
+        String room = new SessionResumeStore(context).getRoom();
+        if (room == null) return null;
+        Uri uri = Uri.parse(room);
+        return uri.getScheme() + "://" + uri.getAuthority();
+    }
+
+    private boolean isCallProcessRunning() {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        List<ActivityManager.RunningAppProcessInfo> processes = activityManager.getRunningAppProcesses();
+        if (processes == null) return false;
+
+        for (ActivityManager.RunningAppProcessInfo process : processes) {
+            if (process.processName.endsWith(WherebyDemoApplication.CALL_PROCESS_SUFFIX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The size of the WebView directories (e.g., "app_webview", "WebView",
+     * and their per-process suffixed variants) directly under the given directory.
+     */
+    private static long sizeOfWebViewDirs(File parent) {
+        File[] children = parent.listFiles();
+        if (children == null) return 0;
+
+        long bytes = 0;
+        for (File child : children) {
+            if (child.isDirectory() && child.getName().toLowerCase(Locale.US).contains("webview")) {
+                bytes += sizeOf(child);
+            }
+        }
+        return bytes;
+    }
+
+    private static long sizeOf(File file) {
+        if (file.isFile()) return file.length();
+
+        File[] children = file.listFiles();
+        if (children == null) return 0;
+
+        long bytes = 0;
+        for (File child : children) {
+            bytes += sizeOf(child);
+        }
+        return bytes;
+    }
+}
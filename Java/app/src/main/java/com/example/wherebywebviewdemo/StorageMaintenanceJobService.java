@@ -0,0 +1,80 @@
+package com.example.wherebywebviewdemo;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs StorageMaintenance about once a day, while the device is charging, on a background
+ * thread of the launcher process. Device idle is not required: always-on kiosk installs
+ * may never reach it. A run is skipped, and retried, while a room is open.
+ */
+public class StorageMaintenanceJobService extends JobService {
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    private static final int JOB_ID = 3901;
+    private static final long INTERVAL_MS = TimeUnit.DAYS.toMillis(1);
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // ─────────────────────────────────────────────
+    // Scheduling
+    // ─────────────────────────────────────────────
+
+    /**
+     * Schedules the maintenance job, unless it is already scheduled with the current
+     * constraints. A job scheduled by an earlier version (requiring device idle) is replaced.
+     */
+    public static void schedule(Context context) {
+        JobScheduler jobScheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        for (JobInfo job : jobScheduler.getAllPendingJobs()) {
+            if (job.getId() == JOB_ID && job.isRequireCharging() && !job.isRequireDeviceIdle()) return;
+        }
+
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, StorageMaintenanceJobService.class))
+                .setRequiresCharging(true)
+                .setPeriodic(INTERVAL_MS)
+                .build();
+        jobScheduler.schedule(job);
+    }
+
+    // ─────────────────────────────────────────────
+    // JobService
+    // ─────────────────────────────────────────────
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        executor.execute(() -> {
+            StorageMaintenance.Report report = new StorageMaintenance(this).run();
+            // A run skipped because a room is open is retried with backoff
+            jobFinished(params, report.skippedReason != null);
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // The device was unplugged; the next periodic run will catch up
+        return false;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.wherebywebviewdemo;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.tracing.Trace;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TraceRecorder marks the app's hot paths for system tracing (androidx.tracing sections,
+ * async slices and counters) so they show up in Perfetto and systrace captures.
+ *
+ * When started, the same events are also written to a local file in the Chrome JSON
+ * trace format, so a trace recorded in the field can be opened in Perfetto
+ * (ui.perfetto.dev) without a system trace capture.
+ */
+public final class TraceRecorder {
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    private static final String TAG = "TraceRecorder";
+    private static final String CATEGORY = "wherebywebviewdemo";
+    private static final int FLUSH_THRESHOLD_CHARS = 64 * 1024;
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private static final Object lock = new Object();
+    private static final AtomicInteger nextAsyncCookie = new AtomicInteger(1);
+    private static final Map<String, AtomicLong> counters = new HashMap<>();
+
+    // Only touched while holding the lock
+    private static ExecutorService writerExecutor;
+    private static Writer writer;
+    private static StringBuilder pendingEvents;
+
+    private static volatile boolean recording = false;
+
+    private TraceRecorder() {
+        // Prevent instantiation
+    }
+
+    // ─────────────────────────────────────────────
+    // Recording to file
+    // ─────────────────────────────────────────────
+
+    /**
+     * Starts writing events to a new trace file in the given directory.
+     *
+     * @param directory Where the trace file is created.
+     * @return The trace file, or null if it could not be created.
+     */
+    public static File start(File directory) {
+        synchronized (lock) {
+            if (recording) {
+                stop();
+            }
+
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                Log.w(TAG, "Could not create trace directory " + directory);
+                return null;
+            }
+
+            File file = new File(directory, "trace_" + System.currentTimeMillis() + ".json");
+            try {
+                writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+                // JSON Array Format: the closing bracket is optional, so a truncated file stays readable
+                writer.write("[\n");
+            } catch (IOException e) {
+                Log.w(TAG, "Could not create trace file", e);
+                writer = null;
+                return null;
+            }
+
+            writerExecutor = Executors.newSingleThreadExecutor();
+            pendingEvents = new StringBuilder(FLUSH_THRESHOLD_CHARS);
+            recording = true;
+
+            appendEvent("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":" + Process.myPid()
+                    + ",\"args\":{\"name\":\"" + CATEGORY + "\"}}");
+            return file;
+        }
+    }
+
+    /**
+     * Flushes and closes the trace file. Tracing sections keep going to the system tracer.
+     */
+    public static void stop() {
+        synchronized (lock) {
+            if (!recording) return;
+            recording = false;
+
+            flushPendingEvents();
+            final Writer closingWriter = writer;
+            writerExecutor.execute(() -> {
+                try {
+                    closingWriter.write("{}]\n");
+                    closingWriter.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not close trace file", e);
+                }
+            });
+            writerExecutor.shutdown();
+
+            writer = null;
+            writerExecutor = null;
+            pendingEvents = null;
+        }
+    }
+
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    // ─────────────────────────────────────────────
+    // Sections
+    // ─────────────────────────────────────────────
+
+    /**
+     * Begins a synchronous section on the current thread. Must be closed by
+     * {@link #endSection()} on the same thread.
+     */
+    public static void beginSection(String name) {
+        Trace.beginSection(name);
+        if (recording) {
+            appendEvent("{\"name\":\"" + name + "\",\"cat\":\"" + CATEGORY + "\",\"ph\":\"B\",\"ts\":" + now()
+                    + ",\"pid\":" + Process.myPid() + ",\"tid\":" + Process.myTid() + "}");
+        }
+    }
+
+    public static void endSection() {
+        Trace.endSection();
+        if (recording) {
+            appendEvent("{\"ph\":\"E\",\"ts\":" + now()
+                    + ",\"pid\":" + Process.myPid() + ",\"tid\":" + Process.myTid() + "}");
+        }
+    }
+
+    /**
+     * Begins an asynchronous slice, which may end on another thread.
+     *
+     * @return The cookie to pass to {@link #endAsyncSection(String, int)}.
+     */
+    public static int beginAsyncSection(String name) {
+        int cookie = nextAsyncCookie.getAndIncrement();
+        Trace.beginAsyncSection(name, cookie);
+        if (recording) {
+            appendEvent(asyncEvent(name, "b", cookie));
+        }
+        return cookie;
+    }
+
+    public static void endAsyncSection(String name, int cookie) {
+        Trace.endAsyncSection(name, cookie);
+        if (recording) {
+            appendEvent(asyncEvent(name, "e", cookie));
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Counters
+    // ─────────────────────────────────────────────
+
+    /**
+     * Adds delta to the named counter (e.g., bytes in flight) and traces the new value.
+     */
+    public static void adjustCounter(String name, long delta) {
+        AtomicLong counter;
+        synchronized (counters) {
+            counter = counters.get(name);
+            if (counter == null) {
+                counter = new AtomicLong();
+                counters.put(name, counter);
+            }
+        }
+
+        long value = counter.addAndGet(delta);
+        Trace.setCounter(name, (int) Math.min(Integer.MAX_VALUE, value));
+        if (recording) {
+            appendEvent("{\"name\":\"" + name + "\",\"ph\":\"C\",\"ts\":" + now()
+                    + ",\"pid\":" + Process.myPid() + ",\"args\":{\"value\":" + value + "}}");
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    private static String asyncEvent(String name, String phase, int cookie) {
+        return "{\"name\":\"" + name + "\",\"cat\":\"" + CATEGORY + "\",\"ph\":\"" + phase + "\",\"id\":" + cookie
+                + ",\"ts\":" + now() + ",\"pid\":" + Process.myPid() + ",\"tid\":" + Process.myTid() + "}";
+    }
+
+    private static long now() {
+        return SystemClock.elapsedRealtimeNanos() / 1000;
+    }
+
+    private static void appendEvent(String event) {
+        synchronized (lock) {
+            if (!recording) return;
+
+            pendingEvents.append(event).append(",\n");
+            if (pendingEvents.length() >= FLUSH_THRESHOLD_CHARS) {
+                flushPendingEvents();
+            }
+        }
+    }
+
+    // Must be called while holding the lock
+    private static void flushPendingEvents() {
+        if (pendingEvents.length() == 0) return;
+
+        final String chunk = pendingEvents.toString();
+        final Writer targetWriter = writer;
+        pendingEvents.setLength(0);
+
+        // Disk I/O stays off the traced threads
+        writerExecutor.execute(() -> {
+            try {
+                targetWriter.write(chunk);
+                targetWriter.flush();
+            } catch (IOException e) {
+                Log.w(TAG, "Could not write trace events", e);
+            }
+        });
+    }
+}
@@ -44,4 +44,73 @@ public class UrlUtils {
 
         return builder.toString();
     }
+
+    /**
+     * Appends query parameters to a URL that may already have some.
+     * Parameters whose key is already present in the URL are left untouched.
+     * Keys and values are URL-encoded.
+     */
+    public static String appendParams(String url, Map<String, String> params) {
+        if (params == null || params.isEmpty()) {
+            return url;
+        }
+
+        int queryStart = url.indexOf('?');
+        String query = queryStart >= 0 ? url.substring(queryStart + 1) : "";
+
+        StringBuilder builder = new StringBuilder(url);
+        boolean hasQuery = queryStart >= 0 && !query.isEmpty();
+        if (queryStart < 0) {
+            builder.append("?");
+        }
+
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            try {
+                String encodedKey = URLEncoder.encode(entry.getKey(), "UTF-8");
+                if (hasQueryParam(query, encodedKey)) {
+                    continue;
+                }
+
+                if (hasQuery) {
+                    builder.append("&");
+                }
+                hasQuery = true;
+
+                if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                    builder.append(encodedKey);
+                } else {
+                    String encodedValue = URLEncoder.encode(entry.getValue(), "UTF-8");
+                    builder.append(encodedKey).append("=").append(encodedValue);
+                }
+
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException("UTF-8 not supported", e);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Returns the URL without its query string and fragment.
+     */
+    public static String stripQuery(String url) {
+        int end = url.length();
+        int queryStart = url.indexOf('?');
+        int fragmentStart = url.indexOf('#');
+        if (queryStart >= 0) end = queryStart;
+        if (fragmentStart >= 0 && fragmentStart < end) end = fragmentStart;
+        return url.substring(0, end);
+    }
+
+    private static boolean hasQueryParam(String query, String encodedKey) {
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String key = separator >= 0 ? pair.substring(0, separator) : pair;
+            if (key.equals(encodedKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
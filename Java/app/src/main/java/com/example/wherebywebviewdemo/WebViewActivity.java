@@ -1,7 +1,12 @@
 package com.example.wherebywebviewdemo;
 
 import android.content.Intent;
+import android.content.res.Configuration;
 import android.os.Bundle;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
 import android.webkit.WebView;
 import android.widget.Toast;
 
@@ -10,12 +15,17 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.util.List;
+
 public class WebViewActivity extends AppCompatActivity {
 
     // ─────────────────────────────────────────────
     // Fields
     // ─────────────────────────────────────────────
 
+    private static final String TAG = "WebViewActivity";
+    private static final long CONFIG_CHANGE_JANK_WINDOW_MS = 500;
+
     private String roomUrlString;
     private WebView webView;
 
@@ -25,6 +35,18 @@ public class WebViewActivity extends AppCompatActivity {
     private ActivityResultLauncher<Intent> fileUploadPickerLauncher;
     private FileUploadHandler fileUploadHandler;
     private FileDownloadHandler fileDownloadHandler;
+    private RendererCrashRecovery rendererCrashRecovery;
+    private SessionResumeManager sessionResumeManager;
+    private NetworkUrlPolicy networkUrlPolicy;
+    private NavigationPolicy navigationPolicy;
+    private CallPowerManager callPowerManager;
+    private ResourceTimingCollector resourceTimingCollector;
+    private FrameMonitor frameMonitor;
+    private WebViewPerformanceProfile.Report performanceReport;
+    private CallProcessChannel callProcessChannel;
+    private long callStartedAtMs;
+    private String callEndReason = CallProcessChannel.END_REASON_LEFT;
+    private boolean roomOpen = false;
 
     // ─────────────────────────────────────────────
     // Lifecycle
@@ -61,7 +83,17 @@ public class WebViewActivity extends AppCompatActivity {
             return;
         }
 
+        callProcessChannel = CallProcessChannel.fromLaunchArgs(bundle);
+        callStartedAtMs = SystemClock.elapsedRealtime();
+
         permissionsManager = new PermissionsManager(this);
+        permissionsManager.applyPreflightDenials(bundle.getStringArray(Constants.PREFLIGHT_DENIED_PERMISSIONS_KEY));
+
+        sessionResumeManager = new SessionResumeManager(
+                new SessionResumeStore(this),
+                bundle.getBoolean(Constants.WARM_JOIN_KEY, false),
+                bundle.getLong(Constants.JOIN_STARTED_AT_KEY, -1)
+        );
 
         webView = findViewById(R.id.webView);
 
@@ -89,17 +121,69 @@ public class WebViewActivity extends AppCompatActivity {
 
         chromeClient = new CustomWebChromeClient(permissionsManager, fileUploadHandler);
 
-        WebViewUtils.configureWebView(
-                webView,
-                chromeClient,
-                fileDownloadHandler
-        );
+        // Power: Keep the device awake only while media flows
+        callPowerManager = new CallPowerManager(this);
+
+        // Jank: Frame durations of the window hosting the call, for this session
+        frameMonitor = new FrameMonitor(getWindow());
+        frameMonitor.start();
+
+        // Diagnostics: Which subresources make the room page slow to load
+        resourceTimingCollector = new ResourceTimingCollector();
+
+        // Navigation: Compiled once per room, including the room's own host
+        navigationPolicy = NavigationPolicy.forRoom(roomUrlString);
+
+        // Recovery: Replace the WebView and rejoin the room if its renderer dies
+        rendererCrashRecovery = new RendererCrashRecovery(roomUrlString, new RendererCrashRecovery.Host() {
+            @Override
+            public void onWebViewReplaced(WebView newWebView) {
+                webView = newWebView;
+                // The reloaded page reports its media again once it runs
+                callPowerManager.setMediaState(false, false);
+                configureWebView();
+            }
+
+            @Override
+            public void onRecoveryAbandoned() {
+                webView = null;
+                callPowerManager.release();
+                callEndReason = CallProcessChannel.END_REASON_CRASHED;
+                Toast.makeText(WebViewActivity.this, "The call stopped unexpectedly", Toast.LENGTH_SHORT).show();
+                finish();
+            }
+        });
+
+        // Network: Lighten the room mode if the link gets worse during the call. The page
+        // cannot switch modes in place, so the new parameters apply from the next (re)join,
+        // e.g. when the room is reloaded after a renderer crash.
+        networkUrlPolicy = new NetworkUrlPolicy(new ConnectivityNetworkStateSource(this));
+        networkUrlPolicy.start((mode, state) -> {
+            Log.i(TAG, "Network mode changed to " + mode + " (" + state + ")");
+            // Parameters are only ever added, so the session never switches back mid-call
+            roomUrlString = NetworkUrlPolicy.applyTo(roomUrlString, mode);
+            rendererCrashRecovery.setRoomUrl(roomUrlString);
+        });
+
+        configureWebView();
+        StorageMaintenance.onRoomOpened();
+        roomOpen = true;
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        // The relayout that follows may drop frames
+        FrameMonitor.markTagged(FrameMonitor.Tag.CONFIG_CHANGE, CONFIG_CHANGE_JANK_WINDOW_MS);
     }
 
     @Override
     protected void onResume() {
         super.onResume();
+        if (webView == null) return;
+
         webView.onResume();
+        callPowerManager.onHostResumed();
 
         if (webView.getUrl() == null) {
             webView.loadUrl(roomUrlString);
@@ -109,15 +193,116 @@ public class WebViewActivity extends AppCompatActivity {
     @Override
     protected void onPause() {
         super.onPause();
-        webView.onPause();
+        if (webView != null) {
+            webView.onPause();
+        }
+        if (callPowerManager != null) {
+            callPowerManager.onHostPaused();
+        }
+        if (sessionResumeManager != null) {
+            sessionResumeManager.onPause();
+        }
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (networkUrlPolicy != null) {
+            networkUrlPolicy.stop();
+        }
+        if (navigationPolicy != null) {
+            Log.i(TAG, "Navigation rule hits: " + navigationPolicy.getHitCounts());
+        }
+        if (resourceTimingCollector != null) {
+            resourceTimingCollector.logSummary();
+        }
+        if (frameMonitor != null) {
+            frameMonitor.stop();
+        }
+        if (rendererCrashRecovery != null) {
+            rendererCrashRecovery.release();
+        }
+        if (sessionResumeManager != null && !isChangingConfigurations()) {
+            sessionResumeManager.onLeave();
+            sendCallEnded();
+        }
+        if (permissionsManager != null) {
+            permissionsManager.release();
+        }
+        if (fileUploadHandler != null) {
+            fileUploadHandler.release();
+        }
+        if (fileDownloadHandler != null && isFinishing() && !isChangingConfigurations()) {
+            fileDownloadHandler.release();
+        }
         if (webView != null) {
-            webView.destroy();
+            WebViewUtils.releaseWebView(webView, fileDownloadHandler, sessionResumeManager, callPowerManager,
+                    resourceTimingCollector);
+            webView = null;
+        }
+        if (callPowerManager != null) {
+            callPowerManager.release();
         }
+        if (roomOpen) {
+            StorageMaintenance.onRoomClosed();
+            roomOpen = false;
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // WebView Setup
+    // ─────────────────────────────────────────────
+
+    private void configureWebView() {
+        performanceReport = WebViewUtils.configureWebView(
+                webView,
+                chromeClient,
+                fileDownloadHandler,
+                rendererCrashRecovery,
+                sessionResumeManager,
+                callPowerManager,
+                resourceTimingCollector,
+                navigationPolicy,
+                WebViewPerformanceProfile.select(this)
+        );
+    }
+
+    // ─────────────────────────────────────────────
+    // Call Results
+    // ─────────────────────────────────────────────
+
+    /**
+     * Hands the session state and call metrics back to the launcher, when the room runs
+     * in the separate call process.
+     */
+    private void sendCallEnded() {
+        if (callProcessChannel == null || !callProcessChannel.isConnected()) return;
+
+        Bundle metrics = new Bundle();
+        metrics.putLong(CallProcessChannel.METRIC_CALL_DURATION_MS, SystemClock.elapsedRealtime() - callStartedAtMs);
+        metrics.putBoolean(CallProcessChannel.METRIC_WARM_JOIN, sessionResumeManager.isWarmJoin());
+        metrics.putLong(CallProcessChannel.METRIC_JOIN_LATENCY_MS, sessionResumeManager.getJoinLatencyMs());
+        List<Long> recoveries = rendererCrashRecovery.getRecoveryDurationsMs();
+        long[] recoveryDurationsMs = new long[recoveries.size()];
+        for (int i = 0; i < recoveryDurationsMs.length; i++) {
+            recoveryDurationsMs[i] = recoveries.get(i);
+        }
+        metrics.putLongArray(CallProcessChannel.METRIC_RECOVERY_DURATIONS_MS, recoveryDurationsMs);
+        metrics.putLong(CallProcessChannel.METRIC_CONSOLE_ERRORS, chromeClient.getConsoleLog().getCount(ConsoleLog.Level.ERROR));
+        metrics.putLong(CallProcessChannel.METRIC_CONSOLE_WARNINGS, chromeClient.getConsoleLog().getCount(ConsoleLog.Level.WARNING));
+        metrics.putLong(CallProcessChannel.METRIC_TOTAL_FRAMES, frameMonitor.getTotalFrames());
+        metrics.putLong(CallProcessChannel.METRIC_SLOW_FRAMES, frameMonitor.getSlowFrames());
+        metrics.putLong(CallProcessChannel.METRIC_FROZEN_FRAMES, frameMonitor.getFrozenFrames());
+        if (performanceReport != null) {
+            metrics.putString(CallProcessChannel.METRIC_PERFORMANCE_PROFILE, performanceReport.getProfileName());
+            metrics.putString(CallProcessChannel.METRIC_UNSUPPORTED_SETTINGS,
+                    TextUtils.join(",", performanceReport.getUnsupported()));
+        }
+        Runtime runtime = Runtime.getRuntime();
+        metrics.putLong(CallProcessChannel.METRIC_JAVA_HEAP_BYTES, runtime.totalMemory() - runtime.freeMemory());
+        metrics.putLong(CallProcessChannel.METRIC_NATIVE_HEAP_BYTES, Debug.getNativeHeapAllocatedSize());
+
+        callProcessChannel.sendCallEnded(callEndReason, new SessionResumeStore(this).exportState(), metrics);
     }
 
     // ─────────────────────────────────────────────
@@ -1,11 +1,14 @@
 package com.example.wherebywebviewdemo;
 
 import android.content.Intent;
+import android.content.res.Configuration;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.webkit.WebView;
+import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
@@ -19,6 +22,9 @@ public class WebViewFragment extends Fragment {
     // Fields
     // ─────────────────────────────────────────────
 
+    private static final String TAG = "WebViewFragment";
+    private static final long CONFIG_CHANGE_JANK_WINDOW_MS = 500;
+
     private String roomUrlString;
     private WebView webView;
 
@@ -28,16 +34,31 @@ public class WebViewFragment extends Fragment {
     private ActivityResultLauncher<Intent> fileUploadPickerLauncher; // upload
     private FileUploadHandler fileUploadHandler;
     private FileDownloadHandler fileDownloadHandler;
+    private RendererCrashRecovery rendererCrashRecovery;
+    private SessionResumeManager sessionResumeManager;
+    private NetworkUrlPolicy networkUrlPolicy;
+    private NavigationPolicy navigationPolicy;
+    private CallPowerManager callPowerManager;
+    private ResourceTimingCollector resourceTimingCollector;
+    private FrameMonitor frameMonitor;
 
     // ─────────────────────────────────────────────
     // Factory
     // ─────────────────────────────────────────────
 
     public static WebViewFragment newInstance(String roomUrlString) {
-        WebViewFragment fragment = new WebViewFragment();
         Bundle args = new Bundle();
         args.putString(Constants.ROOM_URL_KEY, roomUrlString);
-        fragment.setArguments(args);
+        return newInstance(args);
+    }
+
+    /**
+     * @param launchArgs The room URL under Constants.ROOM_URL_KEY, plus optional launch
+     *                   details (warm join, join start time, pre-flight denials).
+     */
+    public static WebViewFragment newInstance(Bundle launchArgs) {
+        WebViewFragment fragment = new WebViewFragment();
+        fragment.setArguments(launchArgs);
         return fragment;
     }
 
@@ -75,26 +96,86 @@ public class WebViewFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_webview, container, false);
         webView = view.findViewById(R.id.webview);
 
+        boolean warmJoin = false;
+        long joinStartedAtMs = -1;
+        String[] preflightDeniedPermissions = null;
         if (getArguments() != null) {
             roomUrlString = getArguments().getString(Constants.ROOM_URL_KEY);
+            warmJoin = getArguments().getBoolean(Constants.WARM_JOIN_KEY, false);
+            joinStartedAtMs = getArguments().getLong(Constants.JOIN_STARTED_AT_KEY, -1);
+            preflightDeniedPermissions = getArguments().getStringArray(Constants.PREFLIGHT_DENIED_PERMISSIONS_KEY);
         }
 
+        sessionResumeManager = new SessionResumeManager(
+                new SessionResumeStore(requireContext()), warmJoin, joinStartedAtMs);
+
         permissionsManager = new PermissionsManager(this);
+        permissionsManager.applyPreflightDenials(preflightDeniedPermissions);
         chromeClient = new CustomWebChromeClient(permissionsManager, fileUploadHandler);
 
-        WebViewUtils.configureWebView(
-                webView,
-                chromeClient,
-                fileDownloadHandler
-        );
+        // Power: Keep the device awake only while media flows
+        callPowerManager = new CallPowerManager(requireActivity());
+
+        // Jank: Frame durations of the window hosting the call, for this session
+        frameMonitor = new FrameMonitor(requireActivity().getWindow());
+        frameMonitor.start();
+
+        // Diagnostics: Which subresources make the room page slow to load
+        resourceTimingCollector = new ResourceTimingCollector();
+
+        // Navigation: Compiled once per room, including the room's own host
+        navigationPolicy = NavigationPolicy.forRoom(roomUrlString);
+
+        // Recovery: Replace the WebView and rejoin the room if its renderer dies
+        rendererCrashRecovery = new RendererCrashRecovery(roomUrlString, new RendererCrashRecovery.Host() {
+            @Override
+            public void onWebViewReplaced(WebView newWebView) {
+                webView = newWebView;
+                // The reloaded page reports its media again once it runs
+                callPowerManager.setMediaState(false, false);
+                configureWebView();
+            }
+
+            @Override
+            public void onRecoveryAbandoned() {
+                webView = null;
+                callPowerManager.release();
+                Toast.makeText(requireContext(), "The call stopped unexpectedly", Toast.LENGTH_SHORT).show();
+                getParentFragmentManager().popBackStack();
+            }
+        });
+
+        // Network: Lighten the room mode if the link gets worse during the call. The page
+        // cannot switch modes in place, so the new parameters apply from the next (re)join,
+        // e.g. when the room is reloaded after a renderer crash.
+        networkUrlPolicy = new NetworkUrlPolicy(new ConnectivityNetworkStateSource(requireContext()));
+        networkUrlPolicy.start((mode, state) -> {
+            Log.i(TAG, "Network mode changed to " + mode + " (" + state + ")");
+            // Parameters are only ever added, so the session never switches back mid-call
+            roomUrlString = NetworkUrlPolicy.applyTo(roomUrlString, mode);
+            rendererCrashRecovery.setRoomUrl(roomUrlString);
+        });
+
+        configureWebView();
+        StorageMaintenance.onRoomOpened();
 
         return view;
     }
 
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        // The relayout that follows may drop frames
+        FrameMonitor.markTagged(FrameMonitor.Tag.CONFIG_CHANGE, CONFIG_CHANGE_JANK_WINDOW_MS);
+    }
+
     @Override
     public void onResume() {
         super.onResume();
+        if (webView == null) return;
+
         webView.onResume();
+        callPowerManager.onHostResumed();
 
         if (webView.getUrl() == null) {
             webView.loadUrl(roomUrlString);
@@ -104,16 +185,86 @@ public class WebViewFragment extends Fragment {
     @Override
     public void onPause() {
         super.onPause();
-        webView.onPause();
+        if (webView != null) {
+            webView.onPause();
+        }
+        if (callPowerManager != null) {
+            callPowerManager.onHostPaused();
+        }
+        if (sessionResumeManager != null) {
+            sessionResumeManager.onPause();
+        }
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (networkUrlPolicy != null) {
+            networkUrlPolicy.stop();
+        }
+        if (navigationPolicy != null) {
+            Log.i(TAG, "Navigation rule hits: " + navigationPolicy.getHitCounts());
+        }
+        if (resourceTimingCollector != null) {
+            resourceTimingCollector.logSummary();
+        }
+        if (frameMonitor != null) {
+            frameMonitor.stop();
+            frameMonitor = null;
+        }
+        if (rendererCrashRecovery != null) {
+            rendererCrashRecovery.release();
+            rendererCrashRecovery = null;
+        }
+        if (permissionsManager != null) {
+            permissionsManager.release();
+            permissionsManager = null;
+        }
+        if (fileUploadHandler != null) {
+            fileUploadHandler.release();
+        }
+        if (sessionResumeManager != null) {
+            sessionResumeManager.onLeave();
+        }
         if (webView != null) {
-            webView.destroy();
+            WebViewUtils.releaseWebView(webView, fileDownloadHandler, sessionResumeManager, callPowerManager,
+                    resourceTimingCollector);
             webView = null;
         }
+        if (callPowerManager != null) {
+            callPowerManager.release();
+        }
+        sessionResumeManager = null;
+        chromeClient = null;
+        StorageMaintenance.onRoomClosed();
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        // Not when the system destroys the host, which is re-created to receive the picker result
+        if (fileDownloadHandler != null && (isRemoving() || requireActivity().isFinishing())
+                && !requireActivity().isChangingConfigurations()) {
+            fileDownloadHandler.release();
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // WebView Setup
+    // ─────────────────────────────────────────────
+
+    private void configureWebView() {
+        WebViewUtils.configureWebView(
+                webView,
+                chromeClient,
+                fileDownloadHandler,
+                rendererCrashRecovery,
+                sessionResumeManager,
+                callPowerManager,
+                resourceTimingCollector,
+                navigationPolicy,
+                WebViewPerformanceProfile.select(requireContext())
+        );
     }
 
     // ─────────────────────────────────────────────
@@ -126,7 +277,9 @@ public class WebViewFragment extends Fragment {
             @NonNull String[] permissions,
             @NonNull int[] grantResults
     ) {
-        if (!permissionsManager.handleRequestPermissionsResult(requestCode, permissions, grantResults)) {
+        // The view, and the manager with it, may be gone by the time the dialog returns
+        if (permissionsManager == null
+                || !permissionsManager.handleRequestPermissionsResult(requestCode, permissions, grantResults)) {
             super.onRequestPermissionsResult(requestCode, permissions, grantResults);
         }
     }
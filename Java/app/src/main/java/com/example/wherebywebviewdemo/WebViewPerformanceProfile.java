@@ -0,0 +1,330 @@
+package com.example.wherebywebviewdemo;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.os.Build;
+import android.util.Log;
+import android.view.View;
+import android.webkit.WebSettings;
+import android.webkit.WebView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * WebViewPerformanceProfile is a declarative set of performance-related WebView settings
+ * (cache mode, pre-rasterization, layer type, renderer priority, image loading, safe
+ * browsing). Profiles are passed to WebViewUtils.configureWebView() by the Activity or
+ * Fragment, so settings can be tuned per device fleet without changing the setup code:
+ * select() returns the preset named by Constants.PERFORMANCE_PROFILE, or one suited to
+ * the device.
+ *
+ * Settings left unset keep the WebView default. Applying a profile returns a Report
+ * listing which settings took effect on the running WebView and which were not
+ * supported by it.
+ */
+public final class WebViewPerformanceProfile {
+
+    private static final String TAG = "WebViewPerformanceProfile";
+
+    // ─────────────────────────────────────────────
+    // Presets
+    // ─────────────────────────────────────────────
+
+    /** Leaves every setting at its WebView default. */
+    public static final WebViewPerformanceProfile DEFAULT = new Builder("default").build();
+
+    /** Keeps memory and GPU use low on devices with little RAM. */
+    public static final WebViewPerformanceProfile LOW_END_DEVICE = new Builder("low-end device")
+            .setOffscreenPreRaster(false)
+            .setRendererPriority(WebView.RENDERER_PRIORITY_IMPORTANT, true)
+            .setLayerType(View.LAYER_TYPE_NONE)
+            .build();
+
+    /** Always-on, plugged-in devices: favour smooth rendering over resource use. */
+    public static final WebViewPerformanceProfile KIOSK = new Builder("kiosk")
+            .setOffscreenPreRaster(true)
+            .setRendererPriority(WebView.RENDERER_PRIORITY_IMPORTANT, false)
+            .setLayerType(View.LAYER_TYPE_HARDWARE)
+            .build();
+
+    /** Lets the system deprioritize the renderer whenever the call is not on screen. */
+    public static final WebViewPerformanceProfile BATTERY_SAVER = new Builder("battery saver")
+            .setOffscreenPreRaster(false)
+            .setRendererPriority(WebView.RENDERER_PRIORITY_BOUND, true)
+            .build();
+
+    // ─────────────────────────────────────────────
+    // Fields
+    // ─────────────────────────────────────────────
+
+    private final String name;
+    private final @Nullable Integer cacheMode;
+    private final @Nullable Boolean offscreenPreRaster;
+    private final @Nullable Integer layerType;
+    private final @Nullable Integer rendererPriority;
+    private final boolean rendererPriorityWaivedWhenNotVisible;
+    private final @Nullable Boolean loadsImagesAutomatically;
+    private final @Nullable Boolean blockNetworkImage;
+    private final @Nullable Boolean safeBrowsingEnabled;
+
+    private WebViewPerformanceProfile(Builder builder) {
+        this.name = builder.name;
+        this.cacheMode = builder.cacheMode;
+        this.offscreenPreRaster = builder.offscreenPreRaster;
+        this.layerType = builder.layerType;
+        this.rendererPriority = builder.rendererPriority;
+        this.rendererPriorityWaivedWhenNotVisible = builder.rendererPriorityWaivedWhenNotVisible;
+        this.loadsImagesAutomatically = builder.loadsImagesAutomatically;
+        this.blockNetworkImage = builder.blockNetworkImage;
+        this.safeBrowsingEnabled = builder.safeBrowsingEnabled;
+    }
+
+    /**
+     * @param context Any context.
+     * @return The preset named by Constants.PERFORMANCE_PROFILE, or forDevice() if none is set.
+     */
+    public static WebViewPerformanceProfile select(Context context) {
+        if (Constants.PERFORMANCE_PROFILE != null) {
+            WebViewPerformanceProfile profile = forName(Constants.PERFORMANCE_PROFILE);
+            if (profile != null) return profile;
+            Log.w(TAG, "Unknown profile '" + Constants.PERFORMANCE_PROFILE + "', picking one for the device");
+        }
+        return forDevice(context);
+    }
+
+    /**
+     * @param name The name of a preset, e.g. "kiosk".
+     * @return The preset with that name, or null.
+     */
+    public static @Nullable WebViewPerformanceProfile forName(String name) {
+        for (WebViewPerformanceProfile profile : new WebViewPerformanceProfile[]{
+                DEFAULT, LOW_END_DEVICE, KIOSK, BATTERY_SAVER}) {
+            if (profile.name.equalsIgnoreCase(name)) return profile;
+        }
+        return null;
+    }
+
+    /**
+     * Picks a preset suited to the current device.
+     *
+     * @param context Any context.
+     * @return LOW_END_DEVICE on low-RAM devices, DEFAULT otherwise.
+     */
+    public static WebViewPerformanceProfile forDevice(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager != null && activityManager.isLowRamDevice()) {
+            return LOW_END_DEVICE;
+        }
+        return DEFAULT;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // ─────────────────────────────────────────────
+    // Applying
+    // ─────────────────────────────────────────────
+
+    /**
+     * Applies this profile to the given WebView and reads each setting back to find out
+     * whether the running WebView honoured it.
+     *
+     * @param webView The WebView to configure.
+     * @return Which settings took effect and which were unsupported.
+     */
+    public Report apply(WebView webView) {
+        WebSettings settings = webView.getSettings();
+        Report report = new Report(name, getWebViewVersion());
+
+        if (cacheMode != null) {
+            settings.setCacheMode(cacheMode);
+            report.record("cacheMode", settings.getCacheMode() == cacheMode);
+        }
+
+        if (offscreenPreRaster != null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                settings.setOffscreenPreRaster(offscreenPreRaster);
+                report.record("offscreenPreRaster", settings.getOffscreenPreRaster() == offscreenPreRaster);
+            } else {
+                report.record("offscreenPreRaster", false);
+            }
+        }
+
+        if (layerType != null) {
+            webView.setLayerType(layerType, null);
+            report.record("layerType", webView.getLayerType() == layerType);
+        }
+
+        if (rendererPriority != null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                webView.setRendererPriorityPolicy(rendererPriority, rendererPriorityWaivedWhenNotVisible);
+                report.record("rendererPriority", webView.getRendererRequestedPriority() == rendererPriority
+                        && webView.getRendererPriorityWaivedWhenNotVisible() == rendererPriorityWaivedWhenNotVisible);
+            } else {
+                report.record("rendererPriority", false);
+            }
+        }
+
+        if (loadsImagesAutomatically != null) {
+            settings.setLoadsImagesAutomatically(loadsImagesAutomatically);
+            report.record("loadsImagesAutomatically", settings.getLoadsImagesAutomatically() == loadsImagesAutomatically);
+        }
+
+        if (blockNetworkImage != null) {
+            settings.setBlockNetworkImage(blockNetworkImage);
+            report.record("blockNetworkImage", settings.getBlockNetworkImage() == blockNetworkImage);
+        }
+
+        if (safeBrowsingEnabled != null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                settings.setSafeBrowsingEnabled(safeBrowsingEnabled);
+                report.record("safeBrowsingEnabled", settings.getSafeBrowsingEnabled() == safeBrowsingEnabled);
+            } else {
+                report.record("safeBrowsingEnabled", false);
+            }
+        }
+
+        Log.i(TAG, report.toString());
+        return report;
+    }
+
+    private static String getWebViewVersion() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            PackageInfo webViewPackage = WebView.getCurrentWebViewPackage();
+            if (webViewPackage != null) {
+                return webViewPackage.packageName + " " + webViewPackage.versionName;
+            }
+        }
+        return "unknown";
+    }
+
+    // ─────────────────────────────────────────────
+    // Report
+    // ─────────────────────────────────────────────
+
+    /**
+     * Outcome of applying a profile to a WebView.
+     */
+    public static final class Report {
+
+        private final String profileName;
+        private final String webViewVersion;
+        private final List<String> applied = new ArrayList<>();
+        private final List<String> unsupported = new ArrayList<>();
+
+        private Report(String profileName, String webViewVersion) {
+            this.profileName = profileName;
+            this.webViewVersion = webViewVersion;
+        }
+
+        private void record(String setting, boolean tookEffect) {
+            (tookEffect ? applied : unsupported).add(setting);
+        }
+
+        public String getProfileName() {
+            return profileName;
+        }
+
+        public String getWebViewVersion() {
+            return webViewVersion;
+        }
+
+        /** @return Settings that were applied and read back with the requested value. */
+        public List<String> getApplied() {
+            return Collections.unmodifiableList(applied);
+        }
+
+        /** @return Settings that the running Android or WebView version did not honour. */
+        public List<String> getUnsupported() {
+            return Collections.unmodifiableList(unsupported);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Profile '" + profileName + "' on " + webViewVersion
+                    + ": applied=" + applied + ", unsupported=" + unsupported;
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Builder
+    // ─────────────────────────────────────────────
+
+    /**
+     * Builds custom profiles. Every setting that is not set keeps the WebView default.
+     */
+    public static final class Builder {
+
+        private final String name;
+        private @Nullable Integer cacheMode;
+        private @Nullable Boolean offscreenPreRaster;
+        private @Nullable Integer layerType;
+        private @Nullable Integer rendererPriority;
+        private boolean rendererPriorityWaivedWhenNotVisible;
+        private @Nullable Boolean loadsImagesAutomatically;
+        private @Nullable Boolean blockNetworkImage;
+        private @Nullable Boolean safeBrowsingEnabled;
+
+        public Builder(String name) {
+            this.name = name;
+        }
+
+        /** @param cacheMode One of the WebSettings.LOAD_* constants. */
+        public Builder setCacheMode(int cacheMode) {
+            this.cacheMode = cacheMode;
+            return this;
+        }
+
+        /** Requires API 23. */
+        public Builder setOffscreenPreRaster(boolean enabled) {
+            this.offscreenPreRaster = enabled;
+            return this;
+        }
+
+        /** @param layerType One of the View.LAYER_TYPE_* constants. */
+        public Builder setLayerType(int layerType) {
+            this.layerType = layerType;
+            return this;
+        }
+
+        /**
+         * Requires API 26.
+         *
+         * @param priority              One of the WebView.RENDERER_PRIORITY_* constants.
+         * @param waivedWhenNotVisible  Whether the priority is dropped while the WebView is not visible.
+         */
+        public Builder setRendererPriority(int priority, boolean waivedWhenNotVisible) {
+            this.rendererPriority = priority;
+            this.rendererPriorityWaivedWhenNotVisible = waivedWhenNotVisible;
+            return this;
+        }
+
+        public Builder setLoadsImagesAutomatically(boolean enabled) {
+            this.loadsImagesAutomatically = enabled;
+            return this;
+        }
+
+        public Builder setBlockNetworkImage(boolean blocked) {
+            this.blockNetworkImage = blocked;
+            return this;
+        }
+
+        /** Requires API 26. */
+        public Builder setSafeBrowsingEnabled(boolean enabled) {
+            this.safeBrowsingEnabled = enabled;
+            return this;
+        }
+
+        public WebViewPerformanceProfile build() {
+            return new WebViewPerformanceProfile(this);
+        }
+    }
+}
@@ -1,17 +1,67 @@
 package com.example.wherebywebviewdemo;
 
-import android.app.Activity;
+import android.content.ActivityNotFoundException;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Build;
+import android.util.Log;
+import android.view.ViewGroup;
 import android.webkit.CookieManager;
+import android.webkit.RenderProcessGoneDetail;
 import android.webkit.WebSettings;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
+import android.widget.Toast;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 
 public class WebViewUtils {
 
-    public static void configureWebView(
+    private static final String TAG = "WebViewUtils";
+
+    /**
+     * Applies the settings, clients and bridges needed to host a Whereby room.
+     *
+     * @param resourceTimingCollector Receives the page's resource timing entries, if set.
+     * @param navigationPolicy        Decides which navigations load in place, open in another app or are blocked.
+     * @param performanceProfile      Performance-related settings to apply on top of the defaults.
+     * @return Which performance settings took effect on the running WebView.
+     */
+    public static WebViewPerformanceProfile.Report configureWebView(
             WebView webView,
             CustomWebChromeClient chromeClient,
-            FileDownloadHandler fileDownloadHandler
+            FileDownloadHandler fileDownloadHandler,
+            @Nullable RendererCrashRecovery rendererCrashRecovery,
+            @Nullable SessionResumeManager sessionResumeManager,
+            @Nullable CallPowerManager callPowerManager,
+            @Nullable ResourceTimingCollector resourceTimingCollector,
+            NavigationPolicy navigationPolicy,
+            WebViewPerformanceProfile performanceProfile
+    ) {
+        TraceRecorder.beginSection("WebViewUtils.configureWebView");
+        try {
+            return configureWebViewInternal(
+                    webView, chromeClient, fileDownloadHandler, rendererCrashRecovery,
+                    sessionResumeManager, callPowerManager, resourceTimingCollector, navigationPolicy,
+                    performanceProfile);
+        } finally {
+            TraceRecorder.endSection();
+        }
+    }
+
+    private static WebViewPerformanceProfile.Report configureWebViewInternal(
+            WebView webView,
+            CustomWebChromeClient chromeClient,
+            FileDownloadHandler fileDownloadHandler,
+            @Nullable RendererCrashRecovery rendererCrashRecovery,
+            @Nullable SessionResumeManager sessionResumeManager,
+            @Nullable CallPowerManager callPowerManager,
+            @Nullable ResourceTimingCollector resourceTimingCollector,
+            NavigationPolicy navigationPolicy,
+            WebViewPerformanceProfile performanceProfile
     ) {
         // ─────────────────────────────────────────────
         // Web settings
@@ -28,6 +78,8 @@ public class WebViewUtils {
         // settings.setAllowFileAccess(false);
         // settings.setAllowContentAccess(false);
 
+        WebViewPerformanceProfile.Report profileReport = performanceProfile.apply(webView);
+
         // ─────────────────────────────────────────────
         // Cookie settings
         // ─────────────────────────────────────────────
@@ -43,16 +95,133 @@ public class WebViewUtils {
         webView.setWebViewClient(new WebViewClient() {
             @Override
             public boolean shouldOverrideUrlLoading(WebView view, String url) {
-                // Prevent navigation inside the WebView.
-                // Feel free to add a list of allowed url, such as Whereby policy.
-                // If not set, shared files will open in a new page, resulting in the user leaving the meeting.
-                return true;
+                // Only trusted pages load in place: shared files and other links open
+                // outside the WebView, so the user does not leave the meeting.
+                switch (navigationPolicy.decide(url)) {
+                    case LOAD:
+                        return false;
+                    case EXTERNAL:
+                        openExternally(view.getContext(), url);
+                        return true;
+                    default:
+                        Log.w(TAG, "Blocked navigation to " + url);
+                        return true;
+                }
+            }
+
+            @Override
+            public void onPageStarted(WebView view, String url, Bitmap favicon) {
+                super.onPageStarted(view, url, favicon);
+                if (resourceTimingCollector != null) {
+                    resourceTimingCollector.injectObserver(view);
+                }
+                if (sessionResumeManager != null) {
+                    sessionResumeManager.onPageStarted(view, url);
+                }
+                if (callPowerManager != null) {
+                    callPowerManager.onPageStarted(view);
+                }
+            }
+
+            @Override
+            public void onPageFinished(WebView view, String url) {
+                super.onPageFinished(view, url);
+                if (resourceTimingCollector != null) {
+                    resourceTimingCollector.injectObserver(view);
+                }
+                if (rendererCrashRecovery != null) {
+                    rendererCrashRecovery.onPageFinished();
+                }
+                if (sessionResumeManager != null) {
+                    sessionResumeManager.onPageFinished(view);
+                }
+                if (callPowerManager != null) {
+                    callPowerManager.onPageFinished(view);
+                }
+            }
+
+            @RequiresApi(api = Build.VERSION_CODES.O)
+            @Override
+            public boolean onRenderProcessGone(WebView view, RenderProcessGoneDetail detail) {
+                // The page's last console messages are the best hint of what killed it
+                chromeClient.getConsoleLog().dump("renderer gone, crashed=" + detail.didCrash());
+
+                // Without a recovery path the system kills the app along with the renderer.
+                if (rendererCrashRecovery != null) {
+                    return rendererCrashRecovery.onRenderProcessGone(view, detail);
+                }
+                return super.onRenderProcessGone(view, detail);
             }
         });
 
         webView.setWebChromeClient(chromeClient);
 
         fileDownloadHandler.attachToWebView(webView);
+
+        if (sessionResumeManager != null) {
+            sessionResumeManager.attachToWebView(webView);
+        }
+
+        if (callPowerManager != null) {
+            callPowerManager.attachToWebView(webView);
+        }
+
+        if (resourceTimingCollector != null) {
+            resourceTimingCollector.attachToWebView(webView);
+        }
+
+        return profileReport;
     }
-}
 
+    /**
+     * Tears down a WebView configured by configureWebView() so that nothing keeps the
+     * hosting Activity alive afterwards: the JavaScript interfaces and clients that
+     * reference it are removed, and the WebView is detached from its parent before
+     * being destroyed, as WebView.destroy() expects.
+     */
+    public static void releaseWebView(
+            WebView webView,
+            FileDownloadHandler fileDownloadHandler,
+            @Nullable SessionResumeManager sessionResumeManager,
+            @Nullable CallPowerManager callPowerManager,
+            @Nullable ResourceTimingCollector resourceTimingCollector
+    ) {
+        TraceRecorder.beginSection("WebViewUtils.releaseWebView");
+        try {
+            webView.stopLoading();
+            fileDownloadHandler.detachFromWebView(webView);
+            if (sessionResumeManager != null) {
+                sessionResumeManager.detachFromWebView(webView);
+            }
+            if (callPowerManager != null) {
+                callPowerManager.detachFromWebView(webView);
+            }
+            if (resourceTimingCollector != null) {
+                resourceTimingCollector.detachFromWebView(webView);
+            }
+            webView.setWebChromeClient(null);
+            webView.setWebViewClient(new WebViewClient());
+
+            ViewGroup parent = (ViewGroup) webView.getParent();
+            if (parent != null) {
+                parent.removeView(webView);
+            }
+            webView.destroy();
+        } finally {
+            TraceRecorder.endSection();
+        }
+    }
+
+    /**
+     * Hands a URL to whichever app handles it (browser, mail, dialer).
+     */
+    private static void openExternally(Context context, String url) {
+        Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse(url));
+        intent.addCategory(Intent.CATEGORY_BROWSABLE);
+        try {
+            context.startActivity(intent);
+        } catch (ActivityNotFoundException e) {
+            Toast.makeText(context, "No app can open this link", Toast.LENGTH_SHORT).show();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.wherebywebviewdemo;
+
+import android.app.Application;
+import android.os.Build;
+import android.webkit.WebView;
+
+/**
+ * Gives the ":call" process its own WebView data directory. Since Android 9 a data
+ * directory can only be used by one process at a time, and the launcher may host a
+ * WebView too (WebViewFragment), so the call process must use a different one.
+ */
+public class WherebyDemoApplication extends Application {
+
+    // ─────────────────────────────────────────────
+    // Constants
+    // ─────────────────────────────────────────────
+
+    // Must match android:process of CallProcessWebViewActivity in AndroidManifest.xml
+    public static final String CALL_PROCESS_SUFFIX = ":call";
+
+    private static final String CALL_DATA_DIRECTORY_SUFFIX = "call";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Must happen before any WebView is created in this process
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P
+                && getProcessName().endsWith(CALL_PROCESS_SUFFIX)) {
+            WebView.setDataDirectorySuffix(CALL_DATA_DIRECTORY_SUFFIX);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.wherebywebviewdemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Local unit tests for ConsoleLog's ring buffer, level filtering and rate limiting.
+ */
+public class ConsoleLogTest {
+
+    @Test
+    public void fullBuffer_keepsNewestMessagesInOrder() {
+        ConsoleLog log = new ConsoleLog(3, ConsoleLog.Level.LOG);
+        for (int i = 0; i < 5; i++) {
+            log.record(ConsoleLog.Level.LOG, "message " + i, "source-" + i, i, 1_000 + i);
+        }
+
+        List<String> entries = log.snapshot();
+        assertEquals(3, entries.size());
+        assertTrue(entries.get(0).endsWith("message 2"));
+        assertTrue(entries.get(2).endsWith("message 4"));
+        assertEquals(5, log.getCount(ConsoleLog.Level.LOG));
+    }
+
+    @Test
+    public void messagesBelowMinLevel_areCountedButNotKept() {
+        ConsoleLog log = new ConsoleLog(8, ConsoleLog.Level.WARNING);
+
+        assertFalse(log.record(ConsoleLog.Level.LOG, "noise", "app.js", 1, 0));
+        assertTrue(log.record(ConsoleLog.Level.ERROR, "boom", "app.js", 2, 0));
+
+        assertEquals(1, log.snapshot().size());
+        assertEquals(1, log.getCount(ConsoleLog.Level.LOG));
+        assertEquals(1, log.getCount(ConsoleLog.Level.ERROR));
+        assertEquals(1, log.getFilteredCount());
+    }
+
+    @Test
+    public void chattySource_isRateLimitedWithoutAffectingOthers() {
+        ConsoleLog log = new ConsoleLog(256, ConsoleLog.Level.LOG);
+        for (int i = 0; i < 100; i++) {
+            log.record(ConsoleLog.Level.LOG, "spam", "chatty.js", 1, 0);
+        }
+
+        assertTrue(log.getRateLimitedCount() > 0);
+        assertTrue(log.record(ConsoleLog.Level.ERROR, "real problem", "app.js", 1, 0));
+    }
+
+    @Test
+    public void rateLimitedSource_recoversOverTime() {
+        ConsoleLog log = new ConsoleLog(256, ConsoleLog.Level.LOG);
+        while (log.record(ConsoleLog.Level.LOG, "spam", "chatty.js", 1, 0)) {
+            // Drain the bucket
+        }
+
+        assertTrue(log.record(ConsoleLog.Level.LOG, "later", "chatty.js", 1, 10_000));
+    }
+
+    @Test
+    public void autoDump_isThrottled() {
+        ConsoleLog log = new ConsoleLog();
+
+        assertTrue(log.shouldAutoDump(100_000));
+        assertFalse(log.shouldAutoDump(101_000));
+        assertTrue(log.shouldAutoDump(200_000));
+    }
+}
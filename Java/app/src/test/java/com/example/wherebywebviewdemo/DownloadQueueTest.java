@@ -0,0 +1,251 @@
+package com.example.wherebywebviewdemo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tests the DownloadQueue journal on the JVM, saving documents to a fake documents
+ * provider and media to a fake MediaStore. A "process restart" is a new DownloadQueue
+ * reading the same directory.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class DownloadQueueTest {
+
+    private static final String DOCUMENTS_AUTHORITY = "com.example.wherebywebviewdemo.test.queue";
+    private static final byte[] CONTENT = "staged content".getBytes(StandardCharsets.UTF_8);
+
+    private Context context;
+    private DownloadQueue downloadQueue;
+    private File directory;
+
+    @Before
+    public void setUp() {
+        FakeDocumentsProvider.reset();
+        Robolectric.setupContentProvider(FakeDocumentsProvider.class, DOCUMENTS_AUTHORITY);
+        FileDownloadHandlerBenchmarkTest.FakeStorageProvider.reset();
+        Robolectric.setupContentProvider(FileDownloadHandlerBenchmarkTest.FakeStorageProvider.class, "media");
+
+        context = ApplicationProvider.getApplicationContext();
+        downloadQueue = new DownloadQueue(context);
+        directory = new File(context.getFilesDir(), "download_queue");
+    }
+
+    @After
+    public void tearDown() {
+        FakeDocumentsProvider.reset();
+        FileDownloadHandlerBenchmarkTest.FakeStorageProvider.reset();
+    }
+
+    // ─────────────────────────────────────────────
+    // Staging and saving
+    // ─────────────────────────────────────────────
+
+    @Test
+    public void stage_waitsForLocation_thenSaves() throws IOException {
+        DownloadQueue.Entry entry = downloadQueue.stage(CONTENT, "application/pdf", "report.pdf", false, null);
+        assertFalse(entry.isReady());
+        assertEquals(entry.id, downloadQueue.findOldestAwaitingLocation().id);
+
+        Uri target = documentUri("report");
+        downloadQueue.setTarget(entry, target);
+
+        assertEquals(DownloadQueue.Result.SAVED, downloadQueue.save(downloadQueue.find(entry.id)));
+        assertArrayEquals(CONTENT, FakeDocumentsProvider.contentOf(target));
+        assertNull(downloadQueue.find(entry.id));
+        assertEquals(0, listFiles().length);
+    }
+
+    @Test
+    public void save_retriesUntilMaxAttempts() throws IOException {
+        DownloadQueue.Entry entry = downloadQueue.stage(CONTENT, "application/pdf", "report.pdf", false, null);
+        downloadQueue.setTarget(entry, documentUri("report"));
+        FakeDocumentsProvider.failing = true;
+
+        for (int attempt = 1; attempt < DownloadQueue.MAX_ATTEMPTS; attempt++) {
+            assertEquals(DownloadQueue.Result.RETRY, downloadQueue.save(entry));
+            assertEquals(attempt, downloadQueue.find(entry.id).attempts);
+        }
+        assertEquals(DownloadQueue.Result.FAILED, downloadQueue.save(entry));
+        assertNull(downloadQueue.find(entry.id));
+        assertEquals(0, listFiles().length);
+    }
+
+    @Test
+    public void save_isBusyWhileEntryIsLocked() throws IOException {
+        DownloadQueue.Entry entry = downloadQueue.stage(CONTENT, "application/pdf", "report.pdf", false, null);
+        Uri target = documentUri("report");
+        downloadQueue.setTarget(entry, target);
+
+        try (RandomAccessFile lockFile = new RandomAccessFile(new File(directory, entry.id + ".data"), "rw");
+             FileLock ignored = lockFile.getChannel().lock()) {
+            assertEquals(DownloadQueue.Result.BUSY, downloadQueue.save(entry));
+        }
+        assertNotNull(downloadQueue.find(entry.id));
+
+        assertEquals(DownloadQueue.Result.SAVED, downloadQueue.save(entry));
+        assertArrayEquals(CONTENT, FakeDocumentsProvider.contentOf(target));
+    }
+
+    @Test
+    public void save_skipsMediaSavedByAnotherQueue() throws IOException {
+        String contentHash = SavedDownloadIndex.computeHash(CONTENT);
+        DownloadQueue.Entry first = downloadQueue.stage(CONTENT, "image/png", "first.png", true, contentHash);
+        DownloadQueue.Entry second = new DownloadQueue(context)
+                .stage(CONTENT, "image/png", "second.png", true, contentHash);
+
+        assertEquals(DownloadQueue.Result.SAVED, downloadQueue.save(first));
+        assertEquals(DownloadQueue.Result.ALREADY_SAVED, new DownloadQueue(context).save(second));
+        assertEquals(1, FileDownloadHandlerBenchmarkTest.FakeStorageProvider.files.size());
+    }
+
+    // ─────────────────────────────────────────────
+    // Journal
+    // ─────────────────────────────────────────────
+
+    @Test
+    public void getEntries_dropsCorruptEntry() throws IOException {
+        DownloadQueue.Entry entry = downloadQueue.stage(CONTENT, "application/pdf", "report.pdf", false, null);
+        try (FileOutputStream output = new FileOutputStream(new File(directory, entry.id + ".json"))) {
+            output.write("{\"id\":".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertTrue(downloadQueue.getEntries().isEmpty());
+        assertEquals(0, listFiles().length);
+    }
+
+    @Test
+    public void newQueue_resumesEntriesAfterRestart() throws IOException {
+        DownloadQueue.Entry awaiting = downloadQueue.stage(CONTENT, "text/plain", "first.txt", false, null);
+        DownloadQueue.Entry ready = downloadQueue.stage(CONTENT, "text/plain", "second.txt", false, null);
+        Uri target = documentUri("second");
+        downloadQueue.setTarget(ready, target);
+
+        DownloadQueue restarted = new DownloadQueue(context);
+        List<DownloadQueue.Entry> entries = restarted.getEntries();
+        assertEquals(2, entries.size());
+        assertEquals(awaiting.id, restarted.findOldestAwaitingLocation().id);
+
+        DownloadQueue.Entry resumed = restarted.find(ready.id);
+        assertTrue(resumed.isReady());
+        assertEquals(DownloadQueue.Result.SAVED, restarted.save(resumed));
+        assertArrayEquals(CONTENT, FakeDocumentsProvider.contentOf(target));
+        assertEquals(1, restarted.getEntries().size());
+    }
+
+    // ─────────────────────────────────────────────
+    // Utility
+    // ─────────────────────────────────────────────
+
+    private static Uri documentUri(String name) {
+        return Uri.parse("content://" + DOCUMENTS_AUTHORITY + "/document/" + name);
+    }
+
+    private File[] listFiles() {
+        File[] files = directory.listFiles();
+        return files != null ? files : new File[0];
+    }
+
+    /**
+     * Minimal documents provider backed by temporary files, which can be made to fail.
+     */
+    public static class FakeDocumentsProvider extends ContentProvider {
+
+        static final Map<Uri, File> files = new ConcurrentHashMap<>();
+        static volatile boolean failing = false;
+
+        static void reset() {
+            for (File file : files.values()) {
+                file.delete();
+            }
+            files.clear();
+            failing = false;
+        }
+
+        static byte[] contentOf(Uri uri) throws IOException {
+            File file = files.get(uri);
+            assertNotNull("Nothing written to " + uri, file);
+            return Files.readAllBytes(file.toPath());
+        }
+
+        @Override
+        public boolean onCreate() {
+            return true;
+        }
+
+        @Override
+        public ParcelFileDescriptor openFile(Uri uri, String mode) throws FileNotFoundException {
+            if (failing) throw new FileNotFoundException("Provider unavailable");
+
+            File file = files.get(uri);
+            if (file == null) {
+                try {
+                    file = File.createTempFile("fake-document", ".bin");
+                } catch (IOException e) {
+                    throw new FileNotFoundException(e.getMessage());
+                }
+                file.deleteOnExit();
+                files.put(uri, file);
+            }
+            return ParcelFileDescriptor.open(file, ParcelFileDescriptor.parseMode(mode));
+        }
+
+        @Override
+        public Uri insert(Uri uri, ContentValues values) {
+            return null;
+        }
+
+        @Override
+        public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+            return 0;
+        }
+
+        @Override
+        public int delete(Uri uri, String selection, String[] selectionArgs) {
+            return 0;
+        }
+
+        @Override
+        public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+            return null;
+        }
+
+        @Override
+        public String getType(Uri uri) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.wherebywebviewdemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Activity;
+import android.content.ContentProvider;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.Intent;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.provider.BaseColumns;
+import android.util.Base64;
+
+import androidx.activity.ComponentActivity;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks the download pipeline on the JVM: synthetic Base64 payloads from 1 MB to
+ * 256 MB are pushed through FileDownloadHandler, for both the gallery path
+ * (handleBlobFromJs with image/video MIME types) and the file picker path. Staged
+ * downloads are saved by draining the DownloadQueue in place of DownloadService.
+ *
+ * Peak heap growth is recorded per size and compared against the upper bounds in
+ * download_benchmark_baselines.properties. Wall time depends on the machine, so it is
+ * only compared when run with -DdownloadBenchmark.checkWallTime=true, on the machine
+ * the baselines were recorded on. Run with -DdownloadBenchmark.record=true to skip
+ * assertions and write new baselines (measured values plus BASELINE_HEADROOM) to
+ * build/reports/download-benchmark.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class FileDownloadHandlerBenchmarkTest {
+
+    private static final int[] PAYLOAD_SIZES_MB = {1, 16, 64, 256};
+    private static final String BASELINES_RESOURCE = "download_benchmark_baselines.properties";
+    private static final String DOCUMENTS_AUTHORITY = "com.example.wherebywebviewdemo.test.documents";
+
+    // Baselines are the recorded values plus this fraction, rounded up
+    private static final double BASELINE_HEADROOM = 0.25;
+
+    private final boolean recordOnly = Boolean.getBoolean("downloadBenchmark.record");
+    private final boolean checkWallTime = Boolean.getBoolean("downloadBenchmark.checkWallTime");
+    private final Properties baselines = new Properties();
+    private final Properties measurements = new Properties();
+
+    private ActivityController<ComponentActivity> activityController;
+    private ComponentActivity activity;
+    private FileDownloadHandler fileDownloadHandler;
+    private DownloadQueue downloadQueue;
+
+    // ─────────────────────────────────────────────
+    // Setup
+    // ─────────────────────────────────────────────
+
+    @Before
+    public void setUp() throws IOException {
+        try (InputStream stream = getClass().getClassLoader().getResourceAsStream(BASELINES_RESOURCE)) {
+            assertNotNull("Missing " + BASELINES_RESOURCE, stream);
+            baselines.load(stream);
+        }
+
+        FakeStorageProvider.reset();
+        Robolectric.setupContentProvider(FakeStorageProvider.class, "media");
+        Robolectric.setupContentProvider(FakeStorageProvider.class, DOCUMENTS_AUTHORITY);
+
+        activityController = Robolectric.buildActivity(ComponentActivity.class).setup();
+        activity = activityController.get();
+
+        // Registering through the registry directly works regardless of lifecycle state
+        ActivityResultLauncher<Intent> launcher = activity.getActivityResultRegistry().register(
+                "benchmark-download-picker",
+                new ActivityResultContracts.StartActivityForResult(),
+                result -> { }
+        );
+        // Stages on the test thread, so each payload is staged when handleBlobFromJs returns
+        fileDownloadHandler = new FileDownloadHandler(activity, launcher, Runnable::run);
+        downloadQueue = new DownloadQueue(activity);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        activityController.destroy();
+        FakeStorageProvider.reset();
+
+        if (recordOnly) {
+            File reportDir = new File(System.getProperty("downloadBenchmark.reportDir", "build/reports/download-benchmark"));
+            if (reportDir.isDirectory() || reportDir.mkdirs()) {
+                try (Writer writer = new FileWriter(new File(reportDir, BASELINES_RESOURCE), true)) {
+                    measurements.store(writer, "Measured download pipeline values plus "
+                            + Math.round(BASELINE_HEADROOM * 100) + "% headroom");
+                }
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Benchmarks
+    // ─────────────────────────────────────────────
+
+    @Test
+    public void galleryImagePath_staysWithinBaselines() {
+        for (int sizeMb : PAYLOAD_SIZES_MB) {
+            runGalleryBenchmark("image", "image/png", sizeMb);
+        }
+    }
+
+    @Test
+    public void galleryVideoPath_staysWithinBaselines() {
+        for (int sizeMb : PAYLOAD_SIZES_MB) {
+            runGalleryBenchmark("video", "video/mp4", sizeMb);
+        }
+    }
+
+    @Test
+    public void filePickerPath_staysWithinBaselines() {
+        for (int sizeMb : PAYLOAD_SIZES_MB) {
+            String payload = buildPayload(sizeMb, "application/pdf");
+            Uri documentUri = Uri.parse("content://" + DOCUMENTS_AUTHORITY + "/document/" + sizeMb);
+            Intent pickerResult = new Intent().setData(documentUri);
+
+            Measurement measurement = measure(() -> {
+                fileDownloadHandler.handleBlobFromJs(payload);
+                fileDownloadHandler.handleFileDownloadPickerResult(Activity.RESULT_OK, pickerResult);
+                drainDownloadQueue();
+            });
+
+            assertEquals(sizeMb * 1024L * 1024L, FakeStorageProvider.bytesWritten(documentUri));
+            check("picker", sizeMb, measurement);
+        }
+    }
+
+    private void runGalleryBenchmark(String kind, String mimeType, int sizeMb) {
+        String payload = buildPayload(sizeMb, mimeType);
+        long committedBefore = FakeStorageProvider.committedBytes.get();
+
+        Measurement measurement = measure(() -> {
+            fileDownloadHandler.handleBlobFromJs(payload);
+            drainDownloadQueue();
+        });
+
+        assertEquals(sizeMb * 1024L * 1024L, FakeStorageProvider.committedBytes.get() - committedBefore);
+        check(kind, sizeMb, measurement);
+    }
+
+    /**
+     * Saves every staged download, as DownloadService would.
+     */
+    private void drainDownloadQueue() {
+        for (DownloadQueue.Entry entry : downloadQueue.getEntries()) {
+            assertEquals(DownloadQueue.Result.SAVED, downloadQueue.save(entry));
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Measurement
+    // ─────────────────────────────────────────────
+
+    private static final class Measurement {
+        final long wallTimeMs;
+        final long peakHeapGrowthMb;
+
+        Measurement(long wallTimeMs, long peakHeapGrowthMb) {
+            this.wallTimeMs = wallTimeMs;
+            this.peakHeapGrowthMb = peakHeapGrowthMb;
+        }
+    }
+
+    private static Measurement measure(Runnable work) {
+        System.gc();
+        long usedBefore = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                usedBefore += pool.getUsage().getUsed();
+            }
+        }
+
+        long start = System.nanoTime();
+        work.run();
+        long wallTimeMs = (System.nanoTime() - start) / 1_000_000;
+
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        long growthMb = Math.max(0, peak - usedBefore) / (1024 * 1024);
+        return new Measurement(wallTimeMs, growthMb);
+    }
+
+    private void check(String path, int sizeMb, Measurement measurement) {
+        String key = path + "." + sizeMb + "mb";
+        measurements.setProperty(key + ".wallTimeMs", Long.toString(withHeadroom(measurement.wallTimeMs)));
+        measurements.setProperty(key + ".peakHeapMb", Long.toString(withHeadroom(measurement.peakHeapGrowthMb)));
+
+        if (recordOnly) return;
+
+        if (checkWallTime) {
+            long maxWallTimeMs = Long.parseLong(baselines.getProperty(key + ".wallTimeMs"));
+            assertTrue(key + " took " + measurement.wallTimeMs + " ms, baseline is " + maxWallTimeMs + " ms",
+                    measurement.wallTimeMs <= maxWallTimeMs);
+        }
+        long maxPeakHeapMb = Long.parseLong(baselines.getProperty(key + ".peakHeapMb"));
+        assertTrue(key + " peaked at +" + measurement.peakHeapGrowthMb + " MB, baseline is " + maxPeakHeapMb + " MB",
+                measurement.peakHeapGrowthMb <= maxPeakHeapMb);
+    }
+
+    private static long withHeadroom(long value) {
+        return (long) Math.ceil(value * (1 + BASELINE_HEADROOM));
+    }
+
+    // ─────────────────────────────────────────────
+    // Payloads
+    // ─────────────────────────────────────────────
+
+    /**
+     * Builds the JSON payload the injected download script sends to handleBlobFromJs.
+     */
+    private static String buildPayload(int sizeMb, String mimeType) {
+        byte[] data = new byte[sizeMb * 1024 * 1024];
+        new Random(sizeMb).nextBytes(data);
+        // Distinct content per MIME type so the deduplication index never short-circuits
+        data[0] = (byte) mimeType.hashCode();
+
+        String base64 = Base64.encodeToString(data, Base64.NO_WRAP);
+        return "{\"data\":\"data:" + mimeType + ";base64," + base64 + "\",\"mime\":\"" + mimeType + "\"}";
+    }
+
+    // ─────────────────────────────────────────────
+    // Fake storage
+    // ─────────────────────────────────────────────
+
+    /**
+     * Minimal stand-in for MediaStore and a documents provider, backed by temporary files.
+     */
+    public static class FakeStorageProvider extends ContentProvider {
+
+        static final Map<Uri, File> files = new ConcurrentHashMap<>();
+        static final AtomicLong nextId = new AtomicLong(1);
+        static final AtomicLong committedBytes = new AtomicLong();
+
+        static void reset() {
+            for (File file : files.values()) {
+                file.delete();
+            }
+            files.clear();
+        }
+
+        static long bytesWritten(Uri uri) {
+            File file = files.get(uri);
+            return file != null ? file.length() : -1;
+        }
+
+        @Override
+        public boolean onCreate() {
+            return true;
+        }
+
+        @Override
+        public Uri insert(Uri uri, ContentValues values) {
+            return ContentUris.withAppendedId(uri, nextId.getAndIncrement());
+        }
+
+        @Override
+        public ParcelFileDescriptor openFile(Uri uri, String mode) throws FileNotFoundException {
+            File file = files.get(uri);
+            if (file == null) {
+                try {
+                    file = File.createTempFile("fake-storage", ".bin");
+                } catch (IOException e) {
+                    throw new FileNotFoundException(e.getMessage());
+                }
+                file.deleteOnExit();
+                files.put(uri, file);
+            }
+            return ParcelFileDescriptor.open(file, ParcelFileDescriptor.parseMode(mode));
+        }
+
+        @Override
+        public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+            Integer pending = values.getAsInteger("is_pending");
+            if (pending != null && pending == 0) {
+                committedBytes.addAndGet(bytesWritten(uri));
+            }
+            return 1;
+        }
+
+        @Override
+        public int delete(Uri uri, String selection, String[] selectionArgs) {
+            File file = files.remove(uri);
+            return file != null && file.delete() ? 1 : 0;
+        }
+
+        @Override
+        public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+            MatrixCursor cursor = new MatrixCursor(new String[]{BaseColumns._ID});
+            if (files.containsKey(uri)) {
+                cursor.addRow(new Object[]{ContentUris.parseId(uri)});
+            }
+            return cursor;
+        }
+
+        @Override
+        public String getType(Uri uri) {
+            return null;
+        }
+    }
+}
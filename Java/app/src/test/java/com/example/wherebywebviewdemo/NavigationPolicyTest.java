@@ -0,0 +1,103 @@
+package com.example.wherebywebviewdemo;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * Local unit tests for NavigationPolicy's rule matching and hit counting.
+ */
+public class NavigationPolicyTest {
+
+    private static final String ROOM_URL = "https://example.whereby.com/room?needancestor";
+
+    @Test
+    public void wherebyPages_loadInPlace() {
+        NavigationPolicy policy = NavigationPolicy.forRoom(ROOM_URL);
+
+        assertEquals(NavigationPolicy.Action.LOAD, policy.decide("https://whereby.com/"));
+        assertEquals(NavigationPolicy.Action.LOAD, policy.decide("https://app.whereby.com/room?x=1"));
+        assertEquals(NavigationPolicy.Action.LOAD, policy.decide("HTTPS://User@Example.Whereby.COM:443/path#frag"));
+    }
+
+    @Test
+    public void hostSuffix_matchesOnLabelBoundariesOnly() {
+        NavigationPolicy policy = NavigationPolicy.forRoom(ROOM_URL);
+
+        assertEquals(NavigationPolicy.Action.EXTERNAL, policy.decide("https://notwhereby.com/"));
+        assertEquals(NavigationPolicy.Action.EXTERNAL, policy.decide("https://whereby.com.evil.example/"));
+    }
+
+    @Test
+    public void externalLinks_openInOtherApps() {
+        NavigationPolicy policy = NavigationPolicy.forRoom(ROOM_URL);
+
+        assertEquals(NavigationPolicy.Action.EXTERNAL, policy.decide("https://help.example.com/article"));
+        assertEquals(NavigationPolicy.Action.EXTERNAL, policy.decide("mailto:support@example.com"));
+        assertEquals(NavigationPolicy.Action.EXTERNAL, policy.decide("tel:+4712345678"));
+    }
+
+    @Test
+    public void dangerousAndUnknownSchemes_areBlocked() {
+        NavigationPolicy policy = NavigationPolicy.forRoom(ROOM_URL);
+
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("javascript:alert(1)"));
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("file:///sdcard/secret"));
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("http://whereby.com.evil.example/"));
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("market://details?id=x"));
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("not a url"));
+    }
+
+    @Test
+    public void customRoomHost_loadsInPlace() {
+        NavigationPolicy policy = NavigationPolicy.forRoom("http://localhost:8080/fake_room.html");
+
+        assertEquals(NavigationPolicy.Action.LOAD, policy.decide("http://localhost:8080/next"));
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("http://otherhost/"));
+    }
+
+    @Test
+    public void roomHost_onlyLoadsOverRoomScheme() {
+        NavigationPolicy policy = NavigationPolicy.forRoom("https://meet.example.com/room");
+
+        assertEquals(NavigationPolicy.Action.LOAD, policy.decide("https://meet.example.com/next"));
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("http://meet.example.com/next"));
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("intent://meet.example.com/#Intent;end"));
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("file://meet.example.com/data"));
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("content://meet.example.com/data"));
+    }
+
+    @Test
+    public void longestSuffix_winsOverShorterOne() {
+        NavigationPolicy policy = new NavigationPolicy.Builder()
+                .load("site", "https", "example.com")
+                .block("admin", null, "admin.example.com")
+                .setDefaultAction(NavigationPolicy.Action.EXTERNAL)
+                .build();
+
+        assertEquals(NavigationPolicy.Action.LOAD, policy.decide("https://www.example.com/"));
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("https://admin.example.com/"));
+        assertEquals(NavigationPolicy.Action.BLOCK, policy.decide("https://x.admin.example.com/"));
+        assertEquals(NavigationPolicy.Action.EXTERNAL, policy.decide("https://example.org/"));
+    }
+
+    @Test
+    public void hits_areCountedPerRule() {
+        NavigationPolicy policy = new NavigationPolicy.Builder()
+                .load("site", "https", "example.com")
+                .external("mail", "mailto", null)
+                .build();
+
+        policy.decide("https://example.com/a");
+        policy.decide("https://example.com/b");
+        policy.decide("mailto:a@example.com");
+        policy.decide("ftp://example.com/");
+
+        Map<String, Long> hits = policy.getHitCounts();
+        assertEquals(2L, (long) hits.get("site"));
+        assertEquals(1L, (long) hits.get("mail"));
+        assertEquals(1L, (long) hits.get("default"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.wherebywebviewdemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local unit tests for NetworkUrlPolicy, driven by a fake NetworkStateSource.
+ */
+public class NetworkUrlPolicyTest {
+
+    private static final String ROOM_URL = "https://example.whereby.com/room?needancestor&skipMediaPermissionPrompt";
+
+    private static class FakeNetworkStateSource implements NetworkStateSource {
+        NetworkState state;
+        @Nullable Listener listener;
+
+        FakeNetworkStateSource(NetworkState state) {
+            this.state = state;
+        }
+
+        @Override
+        public NetworkState getCurrentState() {
+            return state;
+        }
+
+        @Override
+        public void setListener(@Nullable Listener listener) {
+            this.listener = listener;
+        }
+
+        void change(NetworkState newState) {
+            state = newState;
+            if (listener != null) {
+                listener.onNetworkStateChanged(newState);
+            }
+        }
+    }
+
+    private static NetworkState wifi(int kbps) {
+        return new NetworkState(NetworkState.TRANSPORT_WIFI, false, kbps);
+    }
+
+    @Test
+    public void unmeteredFastWifi_leavesUrlUntouched() {
+        NetworkUrlPolicy policy = new NetworkUrlPolicy(new FakeNetworkStateSource(wifi(50_000)));
+
+        assertEquals(NetworkUrlPolicy.Mode.FULL, policy.getMode());
+        assertEquals(ROOM_URL, policy.applyTo(ROOM_URL));
+    }
+
+    @Test
+    public void unknownBandwidthOnWifi_isFull() {
+        NetworkUrlPolicy policy = new NetworkUrlPolicy(
+                new FakeNetworkStateSource(wifi(NetworkState.UNKNOWN_BANDWIDTH)));
+
+        assertEquals(NetworkUrlPolicy.Mode.FULL, policy.getMode());
+    }
+
+    @Test
+    public void meteredOrCellular_addsLowData() {
+        NetworkUrlPolicy metered = new NetworkUrlPolicy(new FakeNetworkStateSource(
+                new NetworkState(NetworkState.TRANSPORT_WIFI, true, 50_000)));
+        NetworkUrlPolicy cellular = new NetworkUrlPolicy(new FakeNetworkStateSource(
+                new NetworkState(NetworkState.TRANSPORT_CELLULAR, false, NetworkState.UNKNOWN_BANDWIDTH)));
+
+        assertEquals(ROOM_URL + "&lowData", metered.applyTo(ROOM_URL));
+        assertEquals(NetworkUrlPolicy.Mode.LOW_BANDWIDTH, cellular.getMode());
+    }
+
+    @Test
+    public void verySlowLink_startsAudioFirst() {
+        NetworkUrlPolicy policy = new NetworkUrlPolicy(new FakeNetworkStateSource(wifi(200)));
+
+        assertEquals(NetworkUrlPolicy.Mode.AUDIO_FIRST, policy.getMode());
+        assertEquals(ROOM_URL + "&lowData&video=off", policy.applyTo(ROOM_URL));
+    }
+
+    @Test
+    public void existingParameters_areKept() {
+        NetworkUrlPolicy policy = new NetworkUrlPolicy(new FakeNetworkStateSource(wifi(200)));
+
+        assertEquals("https://example.whereby.com/room?video=on&lowData",
+                policy.applyTo("https://example.whereby.com/room?video=on"));
+    }
+
+    @Test
+    public void networkChanges_reportOnlyModeTransitions() {
+        FakeNetworkStateSource source = new FakeNetworkStateSource(wifi(50_000));
+        NetworkUrlPolicy policy = new NetworkUrlPolicy(source);
+        List<NetworkUrlPolicy.Mode> modes = new ArrayList<>();
+
+        policy.start((mode, state) -> modes.add(mode));
+        source.change(wifi(40_000));
+        source.change(wifi(1_000));
+        source.change(wifi(900));
+        source.change(wifi(100));
+        policy.stop();
+
+        assertEquals(2, modes.size());
+        assertEquals(NetworkUrlPolicy.Mode.LOW_BANDWIDTH, modes.get(0));
+        assertEquals(NetworkUrlPolicy.Mode.AUDIO_FIRST, modes.get(1));
+        assertNull(source.listener);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.wherebywebviewdemo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Local unit tests for ResourceTimingCollector's per-origin aggregates and percentiles.
+ */
+public class ResourceTimingCollectorTest {
+
+    private static final String ROOM_ORIGIN = "https://whereby.com";
+    private static final String CDN_ORIGIN = "https://cdn.example.com";
+
+    @Test
+    public void entries_areAggregatedPerOriginAndType() {
+        ResourceTimingCollector collector = new ResourceTimingCollector();
+        collector.record(ResourceTimingCollector.Type.SCRIPT, ROOM_ORIGIN, 40, 1_000, 0);
+        collector.record(ResourceTimingCollector.Type.SCRIPT, ROOM_ORIGIN, 60, 3_000, 0);
+        collector.record(ResourceTimingCollector.Type.IMAGE, CDN_ORIGIN, 10, 500, 0);
+
+        ResourceTimingCollector.Stats scripts = collector.query(ROOM_ORIGIN, ResourceTimingCollector.Type.SCRIPT);
+        assertEquals(2, scripts.count);
+        assertEquals(4_000, scripts.transferBytes);
+        assertEquals(0, collector.query(ROOM_ORIGIN, ResourceTimingCollector.Type.IMAGE).count);
+        assertEquals(3, collector.query(null, null).count);
+        assertEquals(2, collector.getStats().size());
+    }
+
+    @Test
+    public void cacheHitRatio_ignoresEntriesWithHiddenSizes() {
+        ResourceTimingCollector collector = new ResourceTimingCollector();
+        collector.record(ResourceTimingCollector.Type.SCRIPT, ROOM_ORIGIN, 5, 0,
+                ResourceTimingCollector.FLAG_CACHE_HIT);
+        collector.record(ResourceTimingCollector.Type.SCRIPT, ROOM_ORIGIN, 50, 2_000, 0);
+        collector.record(ResourceTimingCollector.Type.SCRIPT, ROOM_ORIGIN, 50, 0,
+                ResourceTimingCollector.FLAG_SIZES_HIDDEN);
+
+        ResourceTimingCollector.Stats stats = collector.query(ROOM_ORIGIN, null);
+        assertEquals(3, stats.count);
+        assertEquals(0.5f, stats.cacheHitRatio, 0.001f);
+        assertEquals(-1f, collector.query(CDN_ORIGIN, null).cacheHitRatio, 0.001f);
+    }
+
+    @Test
+    public void percentiles_areWithinBucketPrecision() {
+        ResourceTimingCollector collector = new ResourceTimingCollector();
+        for (int i = 1; i <= 100; i++) {
+            collector.record(ResourceTimingCollector.Type.FETCH, ROOM_ORIGIN, i * 10, 0, 0);
+        }
+
+        ResourceTimingCollector.Stats stats = collector.query(ROOM_ORIGIN, ResourceTimingCollector.Type.FETCH);
+        assertTrue("p50 was " + stats.p50DurationMs, Math.abs(stats.p50DurationMs - 500) <= 500 * 0.25);
+        assertTrue("p95 was " + stats.p95DurationMs, Math.abs(stats.p95DurationMs - 950) <= 950 * 0.25);
+    }
+
+    @Test
+    public void originsBeyondCapacity_areCountedAsOther() {
+        ResourceTimingCollector collector = new ResourceTimingCollector();
+        for (int i = 0; i < ResourceTimingCollector.MAX_ORIGINS + 10; i++) {
+            collector.record(ResourceTimingCollector.Type.IMAGE, "https://host" + i + ".example.com", 10, 100, 0);
+        }
+
+        assertEquals(10, collector.query(ResourceTimingCollector.OTHER_ORIGIN, null).count);
+        List<ResourceTimingCollector.Stats> stats = collector.getStats();
+        assertEquals(ResourceTimingCollector.MAX_ORIGINS + 1, stats.size());
+        assertEquals(ResourceTimingCollector.OTHER_ORIGIN, stats.get(0).origin);
+    }
+
+    @Test
+    public void bucketFor_clampsOutOfRangeDurations() {
+        assertEquals(0, ResourceTimingCollector.bucketFor(0));
+        assertEquals(0, ResourceTimingCollector.bucketFor(-5));
+        assertEquals(ResourceTimingCollector.bucketFor(Long.MAX_VALUE), ResourceTimingCollector.bucketFor(3_600_000));
+    }
+}